@@ -0,0 +1,119 @@
+/*************************************************************************
+ * Title: Database Asynchronous Lookup Benchmark
+ * File: AsyncBenchmark.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This program compares lookup throughput with many lookups in flight,
+ * made either by as many threads each calling getRecord, or by a single
+ * as many asynchronous clients, each starting its next getRecordAsync
+ * lookup as its last completes (which the database serves in sorted,
+ * coalesced batches). It then times async updates against blocking
+ * updates from the same number of threads.
+ *
+ * Usage: java AsyncBenchmark [records] [seconds] [mapped]
+ *
+ * Notes:
+ *  (1) Blocking lookups are not run with more than 256 threads.
+ *  (2) The database files (Async.dat, Async.idx and Async.wal) are
+ *      created in the working directory and removed after the run.
+ *  (3) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Books and setup shared with the other benchmarks (BenchSupport). JME
+ *************************************************************************/
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+public class AsyncBenchmark {
+  private static final String databaseFileName = "Async.dat";
+  private static final int maxThreads = 256;
+  private static final int[] inFlight = { 1, 16, 256, 4096 };
+
+  public static void main( String[] args ) throws Exception {
+    final int records = ( args.length > 0 ? Integer.parseInt( args[0] ) : 1000000 );
+    final double seconds = ( args.length > 1 ? Double.parseDouble( args[1] ) : 2.0 );
+    final boolean mapped = ( args.length > 2 && args[2].equalsIgnoreCase( "mapped" ) );
+
+    try ( EliJames_HW8.Database<Book, Integer> database = BenchSupport.setup( databaseFileName, records, mapped ) ) {
+
+      System.out.printf( "%8s %16s %16s %16s %16s%n", "InFlight", "Reads/s", "AsyncReads/s", "Updates/s", "AsyncUpdates/s" );
+      for ( int n : inFlight ) {
+        final double reads = ( n <= maxThreads ? blocking( n, seconds, key -> {
+          if ( database.getRecord( key ) == null )
+            throw new IllegalStateException( "Lookup failed." );
+        }, records ) : Double.NaN );
+        final double asyncReads = async( n, seconds, key -> database.getRecordAsync( key ).thenAccept( record -> {
+          if ( record == null )
+            throw new IllegalStateException( "Lookup failed." );
+        } ), records );
+        final double updates = ( n <= maxThreads ? blocking( n, seconds, key -> database.updateRecord( BenchSupport.newBook( key ) ), records ) : Double.NaN );
+        final double asyncUpdates = async( n, seconds, key -> database.updateRecordAsync( BenchSupport.newBook( key ) ), records );
+        System.out.printf( "%8d %16.0f %16.0f %16.0f %16.0f%n", n, reads, asyncReads, updates, asyncUpdates );
+      }
+    }
+    BenchSupport.deleteFiles( databaseFileName );
+  }
+
+  // Operations per second of threads each running operation on random keys.
+  private static double blocking( final int threads, final double seconds, final IntConsumer operation, final int records ) throws InterruptedException {
+    final AtomicBoolean running = new AtomicBoolean( true );
+    final LongAdder operations = new LongAdder();
+    final List<Thread> list = new ArrayList<Thread>();
+    for ( int i=0; i<threads; i++ )
+      list.add( new Thread( () -> {
+        while ( running.get() ) {
+          operation.accept( ThreadLocalRandom.current().nextInt( records ) );
+          operations.increment();
+        }
+      } ) );
+    for ( Thread thread : list )
+      thread.start();
+    Thread.sleep( (long)( seconds*1000 ) );
+    running.set( false );
+    for ( Thread thread : list )
+      thread.join();
+    return operations.sum() / seconds;
+  }
+
+  // Asynchronous operation on a key, returning its completion.
+  private interface AsyncOperation {
+    CompletableFuture<?> start( int key );
+  }
+
+  // Operations per second of inFlight asynchronous clients on random keys, each starting its next
+  // operation as its last completes (so inFlight operations are always in flight).
+  private static double async( final int inFlight, final double seconds, final AsyncOperation operation, final int records ) throws InterruptedException {
+    final long end = System.nanoTime() + (long)( seconds*1e9 );
+    final LongAdder operations = new LongAdder();
+    final CountDownLatch clients = new CountDownLatch( inFlight );
+    for ( int i=0; i<inFlight; i++ )
+      next( operation, records, end, operations, clients );
+    clients.await();
+    return operations.sum() / seconds;
+  }
+
+  // Start a client's next operation, or finish the client once time is up.
+  private static void next( final AsyncOperation operation, final int records, final long end, final LongAdder operations, final CountDownLatch clients ) {
+    if ( System.nanoTime() >= end ) {
+      clients.countDown();
+      return;
+    }
+    operation.start( ThreadLocalRandom.current().nextInt( records ) ).whenComplete( ( v, e ) -> {
+      if ( e != null )
+        throw new IllegalStateException( "Operation failed.", e );
+      operations.increment();
+      next( operation, records, end, operations, clients );
+    } );
+  }
+
+} // End of AsyncBenchmark class.
@@ -0,0 +1,59 @@
+/*************************************************************************
+ * Title: Benchmark Support
+ * File: BenchSupport.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This class holds what the benchmark programs (and the JMH database
+ * target) share: the books they store, removal of a database's files,
+ * and a fresh database loaded with books.
+ *
+ * Notes:
+ *  (1) Book n has ISBN n, title "Title n", a year from 1900 to 2019 and
+ *      a price from 0.00 to 49.99, so runs load identical data.
+ *  (2) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *************************************************************************/
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BenchSupport {
+  private BenchSupport() { }
+
+  // Book of isbn.
+  public static Book newBook( final int isbn ) { return newBook( isbn, ( isbn % 5000 ) / 100.0 ); }
+
+  // Book of isbn, with price.
+  public static Book newBook( final int isbn, final double price ) {
+    return new Book( isbn, "Title " + isbn, 1900 + isbn % 120, price );
+  }
+
+  // Delete the files of the database in file: the db file, its log and its key and secondary indexes.
+  public static void deleteFiles( final String file ) {
+    final File db = new File( file ).getAbsoluteFile();
+    final String name = db.getName(), base = ( name.lastIndexOf( '.' ) > 0 ? name.substring( 0, name.lastIndexOf( '.' ) ) : name );
+    final File[] files = db.getParentFile().listFiles( ( directory, f ) ->
+      f.equals( name ) || ( f.startsWith( base + "." ) && ( f.endsWith( ".idx" ) || f.endsWith( ".wal" ) ) ) );
+    if ( files != null )
+      for ( File f : files )
+        f.delete();
+  }
+
+  // Fresh database in file (any old one deleted), bulk loaded with books 0 to records-1.
+  public static EliJames_HW8.Database<Book, Integer> setup( final String file, final int records, final boolean mapped ) throws IOException {
+    deleteFiles( file );
+    final EliJames_HW8.Database<Book, Integer> database = new EliJames_HW8().new Database<Book, Integer>( Book.class, file, mapped );
+    final List<Book> books = new ArrayList<Book>( records );
+    for ( int i=0; i<records; i++ )
+      books.add( newBook( i ) );
+    database.addRecords( books );
+    return database;
+  }
+
+} // End of BenchSupport class.
@@ -0,0 +1,59 @@
+/*************************************************************************
+ * Title: Database Bulk-Load Benchmark
+ * File: BulkLoadBenchmark.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This program loads a stream of generated Book rows into an empty
+ * database through the BulkLoader and reports the ingest rate for each
+ * durability setting, followed by the rate of one addRecord call per
+ * row for comparison.
+ *
+ * Usage: java BulkLoadBenchmark [records] [batchSize]
+ *
+ * Notes:
+ *  (1) The database files (Bulk.dat, Bulk.idx and Bulk.wal) are created
+ *      in the working directory and removed after each run.
+ *  (2) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Books and setup shared with the other benchmarks (BenchSupport). JME
+ *************************************************************************/
+public class BulkLoadBenchmark {
+  private static final String databaseFileName = "Bulk.dat";
+
+  public static void main( String[] args ) throws Exception {
+    final int records = ( args.length > 0 ? Integer.parseInt( args[0] ) : 1000000 );
+    final int batchSize = ( args.length > 1 ? Integer.parseInt( args[1] ) : 4096 );
+    final EliJames_HW8 dbApp = new EliJames_HW8();
+
+    for ( EliJames_HW8.Durability durability : EliJames_HW8.Durability.values() ) {
+      BenchSupport.deleteFiles( databaseFileName );
+      final long start = System.nanoTime();
+      try ( EliJames_HW8.Database<Book, Integer> database = dbApp.new Database<Book, Integer>( Book.class, databaseFileName );
+            EliJames_HW8.Database<Book, Integer>.BulkLoader loader = database.new BulkLoader( batchSize, durability ) ) {
+        for ( int i=0; i<records; i++ )
+          loader.add( BenchSupport.newBook( i ) );
+      }
+      report( "BulkLoader (" + durability + ")", records, System.nanoTime() - start );
+    }
+
+    // Row at a time, for comparison (a tenth of the rows).
+    BenchSupport.deleteFiles( databaseFileName );
+    final long start = System.nanoTime();
+    try ( EliJames_HW8.Database<Book, Integer> database = dbApp.new Database<Book, Integer>( Book.class, databaseFileName ) ) {
+      for ( int i=0; i<records/10; i++ )
+        database.addRecord( BenchSupport.newBook( i ) );
+    }
+    report( "addRecord", records/10, System.nanoTime() - start );
+    BenchSupport.deleteFiles( databaseFileName );
+  }
+
+  private static void report( final String name, final int records, final long nanos ) {
+    System.out.printf( "%-22s %10d rows %10.0f rows/s%n", name, records, records / (nanos / 1e9) );
+  }
+
+} // End of BulkLoadBenchmark class.
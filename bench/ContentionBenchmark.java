@@ -0,0 +1,86 @@
+/*************************************************************************
+ * Title: Database Contention Benchmark
+ * File: ContentionBenchmark.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This program measures Database throughput under contention. For each
+ * reader thread count (1, 2, 4, ... 64) it runs random getRecord calls
+ * on every reader thread while one writer thread continuously updates
+ * random records and another appends new ones, then reports the total
+ * lookup rate and the writer rates.
+ *
+ * Usage: java ContentionBenchmark [records] [seconds] [mapped]
+ *
+ * Notes:
+ *  (1) The database files (Contention.dat, Contention.idx and
+ *      Contention.wal) are created in the working directory and removed
+ *      after the run.
+ *  (2) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Books and setup shared with the other benchmarks (BenchSupport). JME
+ *************************************************************************/
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ContentionBenchmark {
+  private static final String databaseFileName = "Contention.dat";
+  private static final int maxThreads = 64;
+
+  public static void main( String[] args ) throws Exception {
+    final int records = ( args.length > 0 ? Integer.parseInt( args[0] ) : 100000 );
+    final double seconds = ( args.length > 1 ? Double.parseDouble( args[1] ) : 2.0 );
+    final boolean mapped = ( args.length > 2 && args[2].equalsIgnoreCase( "mapped" ) );
+
+    try ( EliJames_HW8.Database<Book, Integer> database = BenchSupport.setup( databaseFileName, records, mapped ) ) {
+
+      System.out.printf( "%8s %16s %16s %16s%n", "Readers", "Reads/s", "Updates/s", "Inserts/s" );
+      int nextIsbn = records;
+      for ( int readers=1; readers<=maxThreads; readers*=2 ) {
+        final AtomicBoolean running = new AtomicBoolean( true );
+        final LongAdder reads = new LongAdder(), updates = new LongAdder(), inserts = new LongAdder();
+        final List<Thread> threads = new ArrayList<Thread>();
+        for ( int i=0; i<readers; i++ )
+          threads.add( new Thread( () -> {
+            while ( running.get() ) {
+              if ( database.getRecord( ThreadLocalRandom.current().nextInt( records ) ) == null )
+                throw new IllegalStateException( "Lookup failed." );
+              reads.increment();
+            }
+          } ) );
+        threads.add( new Thread( () -> {
+          while ( running.get() ) {
+            database.updateRecord( BenchSupport.newBook( ThreadLocalRandom.current().nextInt( records ) ) );
+            updates.increment();
+          }
+        } ) );
+        final int firstIsbn = nextIsbn;
+        threads.add( new Thread( () -> {
+          for ( int isbn=firstIsbn; running.get(); isbn++ ) {
+            database.addRecord( BenchSupport.newBook( isbn ) );
+            inserts.increment();
+          }
+        } ) );
+
+        for ( Thread thread : threads )
+          thread.start();
+        Thread.sleep( (long)( seconds*1000 ) );
+        running.set( false );
+        for ( Thread thread : threads )
+          thread.join();
+        nextIsbn += (int)inserts.sum();
+        System.out.printf( "%8d %16.0f %16.0f %16.0f%n", readers, reads.sum() / seconds,
+                           updates.sum() / seconds, inserts.sum() / seconds );
+      }
+    }
+    BenchSupport.deleteFiles( databaseFileName );
+  }
+
+} // End of ContentionBenchmark class.
@@ -0,0 +1,82 @@
+/*************************************************************************
+ * Title: Database Range Query Benchmark
+ * File: RangeQueryBenchmark.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This program measures secondary index range queries. It loads a
+ * database with random prices and publication years, declares price and
+ * year indexes, then times price range queries of increasing width
+ * (selectivity) against a full scan of the db file (displayRecords with
+ * its output discarded), which is what such a query cost without an
+ * index.
+ *
+ * Usage: java RangeQueryBenchmark [records] [mapped]
+ *
+ * Notes:
+ *  (1) The database files (Range.dat, Range.idx, Range.price.idx,
+ *      Range.year.idx and Range.wal) are created in the working directory and removed
+ *      after the run.
+ *  (2) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Books and setup shared with the other benchmarks (BenchSupport). JME
+ *************************************************************************/
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+public class RangeQueryBenchmark {
+  private static final String databaseFileName = "Range.dat";
+  private static final int queries = 20;           // Timed queries per range width.
+
+  public static void main( String[] args ) throws Exception {
+    final int records = ( args.length > 0 ? Integer.parseInt( args[0] ) : 200000 );
+    final boolean mapped = ( args.length > 1 && args[1].equalsIgnoreCase( "mapped" ) );
+    final Random random = new Random( 131 );
+
+    BenchSupport.deleteFiles( databaseFileName );
+    try ( EliJames_HW8.Database<Book, Integer> database = new EliJames_HW8().new Database<Book, Integer>( Book.class, databaseFileName, mapped ) ) {
+      final List<Book> books = new ArrayList<Book>( records );
+      for ( int i=0; i<records; i++ )
+        books.add( new Book( i, "Title " + i, 1900 + random.nextInt( 120 ), random.nextInt( 10000 )/100.0 ) );
+      database.addRecords( books );
+      long start = System.nanoTime();
+      database.createIndex( "price", Book::getPrice );
+      database.createIndex( "year", Book::getYearPublished );
+      System.out.printf( "Built 2 indexes over %d records in %.0f ms%n", records, (System.nanoTime() - start)/1e6 );
+
+      // Full scan reference.
+      final PrintStream out = System.out;
+      System.setOut( new PrintStream( new OutputStream() { public void write( int b ) { } } ) );
+      start = System.nanoTime();
+      try {
+        database.displayRecords();
+      } finally {
+        System.setOut( out );
+      }
+      System.out.printf( "Full scan: %.0f us%n", (System.nanoTime() - start)/1e3 );
+
+      System.out.printf( "%12s %12s %12s %12s%n", "Width ($)", "Records", "us/query", "us/record" );
+      for ( double width : new double[] { 0.10, 1.0, 10.0 } ) {
+        long matched = 0;
+        start = System.nanoTime();
+        for ( int q=0; q<queries; q++ ) {
+          final double from = random.nextInt( 9000 )/100.0;
+          for ( Iterator<EliJames_HW8.Record<Book, Integer>> it = database.rangeQuery( "price", from, from + width ); it.hasNext(); it.next() )
+            matched++;
+        }
+        final double micros = (System.nanoTime() - start)/1e3;
+        System.out.printf( "%12.2f %12d %12.1f %12.2f%n", width, matched/queries, micros/queries, micros/Math.max( matched, 1 ) );
+      }
+    }
+    BenchSupport.deleteFiles( databaseFileName );
+  }
+
+} // End of RangeQueryBenchmark class.
@@ -0,0 +1,66 @@
+/*************************************************************************
+ * Title: Database Scaling Benchmark
+ * File: ScalingBenchmark.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This program grows a Book database from empty up to a maximum record
+ * count (10M by default), and at each decade (1K, 10K, 100K, ...) it
+ * measures the average latency of a window of additional adds and of a
+ * window of random key lookups. With the in-memory key index and the growable
+ * file, both latencies should stay roughly flat as the file grows.
+ *
+ * Usage: java ScalingBenchmark [maxRecords] [mapped]
+ *
+ * Notes:
+ *  (1) The database files (Scaling.dat, Scaling.idx and Scaling.wal) are
+ *      created in the working directory and removed before the run.
+ *  (2) Commits are not synced (setSyncCommits), so the adds measure the
+ *      index and file growth rather than the device sync latency.
+ *  (3) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Books and setup shared with the other benchmarks (BenchSupport). JME
+ *************************************************************************/
+import java.util.Random;
+
+public class ScalingBenchmark {
+  private static final String databaseFileName = "Scaling.dat";
+  private static final int window = 10000;     // Operations timed at each checkpoint.
+
+  public static void main( String[] args ) throws Exception {
+    final long maxRecords = ( args.length > 0 ? Long.parseLong( args[0] ) : 10000000L );
+    final boolean mapped = ( args.length > 1 && args[1].equalsIgnoreCase( "mapped" ) );
+    final Random random = new Random( 131 );
+
+    BenchSupport.deleteFiles( databaseFileName );
+    System.out.printf( "%12s %14s %14s%n", "Records", "Add (us/op)", "Get (us/op)" );
+    try ( EliJames_HW8.Database<Book, Integer> database = new EliJames_HW8().new Database<Book, Integer>( Book.class, databaseFileName, mapped ) ) {
+      database.setSyncCommits( false );
+      int next = 0; // Next ISBN to add.
+      for ( long checkpoint=1000; checkpoint<=maxRecords; checkpoint*=10 ) {
+        // Grow (untimed) to just short of the checkpoint.
+        while ( next < checkpoint - window )
+          database.addRecord( BenchSupport.newBook( next++ ) );
+        // Time the adds which reach the checkpoint.
+        final int adds = (int)( checkpoint - next );
+        long start = System.nanoTime();
+        while ( next < checkpoint )
+          database.addRecord( BenchSupport.newBook( next++ ) );
+        final double addLatency = ( System.nanoTime() - start ) / 1000.0 / adds;
+        // Time random lookups of existing keys.
+        start = System.nanoTime();
+        for ( int i=0; i<window; i++ )
+          if ( database.getRecord( random.nextInt( next ) ) == null )
+            throw new IllegalStateException( "Lookup failed." );
+        final double getLatency = ( System.nanoTime() - start ) / 1000.0 / window;
+        System.out.printf( "%12d %14.2f %14.2f%n", checkpoint, addLatency, getLatency );
+      }
+    }
+    BenchSupport.deleteFiles( databaseFileName );
+  }
+
+} // End of ScalingBenchmark class.
@@ -0,0 +1,99 @@
+/*************************************************************************
+ * Title: Database Scan Benchmark
+ * File: ScanBenchmark.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This program measures full-table scans. It loads a database, then
+ * times displayRecords (its output discarded), a stream of record copies
+ * (scan), a filtered scan (predicate pushdown, copying only the matches),
+ * a projected scan of prices, and a flyweight cursor summing prices,
+ * then the parallel (ForkJoinPool) aggregates: count, price statistics
+ * and price statistics grouped by year. It reports the time and the
+ * bytes allocated per row scanned (from the thread allocation counter,
+ * so for the parallel scans only the calling thread's share).
+ *
+ * Usage: java ScanBenchmark [records] [mapped]
+ *
+ * Notes:
+ *  (1) The database files (Scan.dat, Scan.idx and Scan.wal) are created
+ *      in the working directory and removed after the run.
+ *  (2) Parallel scans use the common ForkJoinPool, sized by the number
+ *      of processors (or java.util.concurrent.ForkJoinPool.common.parallelism).
+ *  (3) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Added parallel aggregates. JME
+ *   10/18/2026: Books and setup shared with the other benchmarks (BenchSupport). JME
+ *************************************************************************/
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ForkJoinPool;
+
+public class ScanBenchmark {
+  private static final String databaseFileName = "Scan.dat";
+  private static final int iterations = 5;         // Timed runs of each scan (after one warmup).
+
+  // A timed scan, returning a result (so it is not optimized away).
+  private static interface Scan {
+    public double run();
+  }
+
+  private static final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+  public static void main( String[] args ) throws Exception {
+    final int records = ( args.length > 0 ? Integer.parseInt( args[0] ) : 1000000 );
+    final boolean mapped = ( args.length > 1 && args[1].equalsIgnoreCase( "mapped" ) );
+
+    BenchSupport.deleteFiles( databaseFileName );
+    try ( EliJames_HW8.Database<Book, Integer> database = new EliJames_HW8().new Database<Book, Integer>( Book.class, databaseFileName, mapped ) ) {
+      try ( EliJames_HW8.Database<Book, Integer>.BulkLoader loader = database.new BulkLoader( 4096, EliJames_HW8.Durability.NONE ) ) {
+        for ( int i=0; i<records; i++ )
+          loader.add( BenchSupport.newBook( i ) );
+      }
+
+      System.out.printf( "%-28s %12s %12s %12s%n", "Scan", "ms", "ns/row", "B/row" );
+      final PrintStream out = System.out;
+      measure( "displayRecords", records, () -> {
+        System.setOut( new PrintStream( new OutputStream() { public void write( int b ) { } } ) );
+        try {
+          database.displayRecords();
+        } finally {
+          System.setOut( out );
+        }
+        return 0;
+      } );
+      measure( "scan (copies)", records, () -> database.scan().count() );
+      measure( "scan (year == 2000)", records, () -> database.scan( r -> r.getYearPublished() == 2000 ).count() );
+      measure( "scan (select price)", records, () -> database.scan( r -> true, r -> r.getPrice() ).mapToDouble( Double::doubleValue ).sum() );
+      measure( "cursor (sum price)", records, () -> {
+        double sum = 0;
+        for ( EliJames_HW8.Database<Book, Integer>.ScanCursor cursor = database.cursor( r -> true ); cursor.next(); )
+          sum += cursor.record().getPrice();
+        return sum;
+      } );
+      System.out.printf( "Parallel scans, %d workers:%n", ForkJoinPool.commonPool().getParallelism() );
+      measure( "count", records, () -> database.count( r -> true ) );
+      measure( "statistics (price)", records, () -> database.statistics( r -> true, Book::getPrice ).getSum() );
+      measure( "statisticsBy (year, price)", records, () -> database.statisticsBy( r -> true, Book::getYearPublished, Book::getPrice ).size() );
+    }
+    BenchSupport.deleteFiles( databaseFileName );
+  }
+
+  // Run scan once untimed, then report the mean time and allocation of the timed runs.
+  private static void measure( final String name, final int records, final Scan scan ) {
+    scan.run();
+    final long id = Thread.currentThread().getId();
+    final long bytes = threads.getThreadAllocatedBytes( id ), start = System.nanoTime();
+    for ( int i=0; i<iterations; i++ )
+      scan.run();
+    final double nanos = (double)( System.nanoTime() - start ) / iterations;
+    final double allocated = (double)( threads.getThreadAllocatedBytes( id ) - bytes ) / iterations;
+    System.out.printf( "%-28s %12.1f %12.1f %12.1f%n", name, nanos/1e6, nanos/records, allocated/records );
+  }
+
+} // End of ScanBenchmark class.
@@ -0,0 +1,90 @@
+/*************************************************************************
+ * Title: Database Snapshot Scan Benchmark
+ * File: SnapshotBenchmark.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This program measures reporting scans alongside a high rate of
+ * updates. While updater threads continuously update random records, a
+ * reporting thread repeatedly totals every price, first with plain scans
+ * (each block read under every stripe lock, so updates wait on it and a
+ * total mixes old and new prices) and then with snapshot scans (no locks
+ * held against updaters, each total as of its snapshot). It reports the
+ * update and scan rates, and for snapshots the most old slot images kept.
+ *
+ * Usage: java SnapshotBenchmark [records] [seconds] [updaters] [mapped]
+ *
+ * Notes:
+ *  (1) Updates do not wait for the log sync, so the updaters are limited
+ *      by the database rather than the disk.
+ *  (2) The database files (Snapshot.dat, Snapshot.idx and Snapshot.wal)
+ *      are created in the working directory and removed after the run.
+ *  (3) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Books and setup shared with the other benchmarks (BenchSupport). JME
+ *************************************************************************/
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+public class SnapshotBenchmark {
+  private static final String databaseFileName = "Snapshot.dat";
+
+  public static void main( String[] args ) throws Exception {
+    final int records = ( args.length > 0 ? Integer.parseInt( args[0] ) : 1000000 );
+    final double seconds = ( args.length > 1 ? Double.parseDouble( args[1] ) : 5.0 );
+    final int updaters = ( args.length > 2 ? Integer.parseInt( args[2] ) : 2 );
+    final boolean mapped = ( args.length > 3 && args[3].equalsIgnoreCase( "mapped" ) );
+
+    try ( EliJames_HW8.Database<Book, Integer> database = BenchSupport.setup( databaseFileName, records, mapped ) ) {
+      database.setSyncCommits( false );
+
+      System.out.printf( "%-10s %16s %16s %16s%n", "Scans", "Updates/s", "Scans/s", "MaxVersions" );
+      for ( boolean snapshots : new boolean[] { false, true } ) {
+        final AtomicBoolean running = new AtomicBoolean( true );
+        final LongAdder updates = new LongAdder();
+        final List<Thread> threads = new ArrayList<Thread>();
+        for ( int i=0; i<updaters; i++ )
+          threads.add( new Thread( () -> {
+            while ( running.get() ) {
+              database.updateRecord( newBook( ThreadLocalRandom.current().nextInt( records ) ) );
+              updates.increment();
+            }
+          } ) );
+        for ( Thread thread : threads )
+          thread.start();
+        final long end = System.nanoTime() + (long)( seconds*1e9 );
+        long scans = 0;
+        long maxVersions = 0;
+        while ( System.nanoTime() < end ) {
+          if ( snapshots ) {
+            try ( EliJames_HW8.Database<Book, Integer>.Snapshot snapshot = database.snapshot() ) {
+              snapshot.scan( r -> true, r -> r ).mapToDouble( Book::getPrice ).sum();
+              maxVersions = Math.max( maxVersions, database.retainedVersions() );
+            }
+          } else
+            database.scan( r -> true, r -> r ).mapToDouble( Book::getPrice ).sum();
+          scans++;
+        }
+        running.set( false );
+        for ( Thread thread : threads )
+          thread.join();
+        System.out.printf( "%-10s %16.0f %16.2f %16s%n", ( snapshots ? "Snapshot" : "Locked" ), updates.sum() / seconds,
+                           scans / seconds, ( snapshots ? Long.toString( maxVersions ) : "-" ) );
+      }
+    }
+    BenchSupport.deleteFiles( databaseFileName );
+  }
+
+  // Book whose price varies with each update.
+  private static Book newBook( final int isbn ) {
+    return BenchSupport.newBook( isbn, ThreadLocalRandom.current().nextInt( 5000 ) / 100.0 );
+  }
+
+} // End of SnapshotBenchmark class.
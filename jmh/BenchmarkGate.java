@@ -0,0 +1,122 @@
+/*************************************************************************
+ * Title: JMH Benchmark Regression Gate
+ * File: BenchmarkGate.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This program runs the JMH benchmarks (through the JMH Runner, so with
+ * its forks, warmups and result consumption), and compares each score
+ * and its error (the 99.9% confidence interval JMH reports) with a saved
+ * baseline. A benchmark regresses only if its whole interval lies above
+ * the baseline's interval, widened by the tolerance, so run to run noise
+ * does not fail the gate (exit status 1) but a real slowdown does.
+ *
+ * Usage: java -cp target/benchmarks.jar BenchmarkGate [-save results.csv]
+ *          [-baseline results.csv] [-tolerance 0.10] [JMH options]
+ *
+ * Any other options (a benchmark regex, -p size=1000, -f 3, ...) are
+ * passed to JMH as on its own command line. The saved results hold one
+ * line per benchmark and parameter set: name, score, error and unit. The
+ * gated benchmarks are all time per operation, so lower is better.
+ *
+ * Notes:
+ *  (1) Compare results from the same machine and JMH options only.
+ *  (2) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *************************************************************************/
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+
+public class BenchmarkGate {
+
+  public static void main( String[] args ) throws Exception {
+    String save = null, baseline = null;
+    double tolerance = 0.10;
+    final List<String> jmhArgs = new ArrayList<String>();
+    for ( int i=0; i<args.length; i++ ) {
+      if ( args[i].equals( "-save" ) )
+        save = args[++i];
+      else if ( args[i].equals( "-baseline" ) )
+        baseline = args[++i];
+      else if ( args[i].equals( "-tolerance" ) )
+        tolerance = Double.parseDouble( args[++i] );
+      else
+        jmhArgs.add( args[i] );
+    }
+
+    final Collection<RunResult> runs = new Runner( new CommandLineOptions( jmhArgs.toArray( new String[0] ) ) ).run();
+    final Map<String, Result<?>> results = new LinkedHashMap<String, Result<?>>();
+    for ( RunResult run : runs )
+      results.put( name( run.getParams() ), run.getPrimaryResult() );
+
+    if ( save != null )
+      saveResults( save, results );
+    if ( baseline != null && !compareResults( baseline, tolerance, results ) )
+      System.exit( 1 );
+  }
+
+  // Benchmark name with its parameters, e.g. OperationBenchmark.getRecordHit/keys=random/size=1000.
+  private static String name( final BenchmarkParams params ) {
+    final String benchmark = params.getBenchmark();
+    final StringBuilder name = new StringBuilder( benchmark.substring( benchmark.lastIndexOf( '.', benchmark.lastIndexOf( '.' ) - 1 ) + 1 ) );
+    for ( String key : params.getParamsKeys() )
+      name.append( '/' ).append( key ).append( '=' ).append( params.getParam( key ) );
+    return name.toString();
+  }
+
+  // Score error, taken as 0 if JMH had too few samples to estimate it.
+  private static double error( final double error ) { return Double.isNaN( error ) ? 0 : error; }
+
+  private static void saveResults( final String file, final Map<String, Result<?>> results ) throws IOException {
+    try ( PrintWriter writer = new PrintWriter( file ) ) {
+      for ( Map.Entry<String, Result<?>> e : results.entrySet() )
+        writer.printf( "%s,%.3f,%.3f,%s%n", e.getKey(), e.getValue().getScore(), error( e.getValue().getScoreError() ), e.getValue().getScoreUnit() );
+    }
+  }
+
+  // Returns false if any benchmark's interval lies wholly above its widened baseline interval.
+  private static boolean compareResults( final String file, final double tolerance, final Map<String, Result<?>> results ) throws IOException {
+    boolean passed = true;
+    try ( BufferedReader reader = new BufferedReader( new FileReader( file ) ) ) {
+      String line;
+      while ( (line = reader.readLine()) != null ) {
+        final String[] fields = line.split( "," );
+        final Result<?> result = results.get( fields[0] );
+        if ( result == null )
+          continue; // Not run this time.
+        if ( !result.getScoreUnit().equals( fields[3] ) ) {
+          System.out.printf( "SKIPPED %s: unit %s vs baseline %s%n", fields[0], result.getScoreUnit(), fields[3] );
+          continue;
+        }
+        final double low = result.getScore() - error( result.getScoreError() );
+        final double high = ( Double.parseDouble( fields[1] ) + Double.parseDouble( fields[2] ) )*(1 + tolerance);
+        if ( low > high ) {
+          System.out.printf( "REGRESSION %s: %.3f +/- %.3f %s vs baseline %s +/- %s %s%n", fields[0], result.getScore(),
+                             error( result.getScoreError() ), fields[3], fields[1], fields[2], fields[3] );
+          passed = false;
+        }
+      }
+    }
+    if ( passed )
+      System.out.println( "No regressions against " + file + "." );
+    return passed;
+  }
+
+} // End of BenchmarkGate class.
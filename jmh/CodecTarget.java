@@ -0,0 +1,69 @@
+/*************************************************************************
+ * Title: Record Encoding JMH Benchmark Target
+ * File: CodecTarget.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * The codec side of benchmarks.CodecBenchmark: the ReadWrite encoding of
+ * a Book record, to a direct buffer and to a random access file. The
+ * writes return their buffer or file and the reads the decoded record.
+ *
+ * Notes:
+ *  (1) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *************************************************************************/
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import benchmarks.CodecBenchmark;
+
+public class CodecTarget implements CodecBenchmark.Target {
+  private EliJames_HW8.ReadWrite<Book, Integer> codec;
+  private EliJames_HW8.Record<Book, Integer> record;
+  private ByteBuffer buffer;
+  private File file;
+  private RandomAccessFile raf;
+
+  public void open() throws Exception {
+    codec = new EliJames_HW8().new ReadWrite<Book, Integer>( Book.class );
+    record = new EliJames_HW8.Record<Book, Integer>( RecordCodec.of( Book.class ), new Book( 131, "Title 131", 2016, 13.1 ) );
+    buffer = ByteBuffer.allocateDirect( 256 );
+    codec.write( buffer, record );
+    file = File.createTempFile( "Codec", ".dat" );
+    raf = new RandomAccessFile( file, "rw" );
+    codec.write( raf, record );
+  }
+
+  public Object writeBuffer() throws Exception {
+    buffer.clear();
+    codec.write( buffer, record );
+    return buffer;
+  }
+
+  public Object readBuffer() throws Exception {
+    buffer.clear();
+    return codec.read( buffer );
+  }
+
+  public Object writeRaf() throws Exception {
+    raf.seek( 0 );
+    codec.write( raf, record );
+    return raf;
+  }
+
+  public Object readRaf() throws Exception {
+    raf.seek( 0 );
+    return codec.read( raf );
+  }
+
+  public void close() throws Exception {
+    raf.close();
+    file.delete();
+  }
+
+} // End of CodecTarget class.
@@ -0,0 +1,124 @@
+/*************************************************************************
+ * Title: Database Operation JMH Benchmark Target
+ * File: DatabaseTarget.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * The database side of benchmarks.OperationBenchmark: a Book database of
+ * the benchmark's size and options, with the keys each operation cycles
+ * through (present, absent, and distinct present keys to delete), and the
+ * new and changed books prepared up front so only the operation itself is
+ * timed.
+ *
+ * Notes:
+ *  (1) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Books and setup shared with the bench programs (BenchSupport). JME
+ *************************************************************************/
+import java.io.File;
+import java.nio.file.Files;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import benchmarks.OperationBenchmark;
+
+public class DatabaseTarget implements OperationBenchmark.Target {
+  private static final int batch = OperationBenchmark.BATCH;
+  private static final int keyCount = 8192;     // Keys cycled through by the lookups and updates (a power of 2).
+
+  private File directory;
+  private EliJames_HW8.Database<Book, Integer> database;
+  private boolean metrics;
+  private int[] hits, misses;                   // Keys present and absent.
+  private Book[] updates;                       // Changed books, for the hit keys.
+  private Book[] adds;                          // New books, for a batch of adds.
+  private int[] deletes;                        // Distinct present keys, for a batch of deletes.
+  private int next, added, deleted;             // Next lookup key, adds and deletes made this batch.
+
+  public void open( final int size, final boolean random, final boolean mapped, final String cache, final long cacheSize,
+                    final boolean sync, final boolean metrics ) throws Exception {
+    if ( size < batch )
+      throw new IllegalArgumentException( "Database size must be at least " + batch + " records." );
+    directory = Files.createTempDirectory( "Bench" ).toFile();
+    database = BenchSupport.setup( new File( directory, "Bench.dat" ).getPath(), size, mapped );
+    database.setCompactionThreshold( 1.0 ); // Keep compaction out of the delete timings.
+    database.setSyncCommits( sync );
+    if ( cache.equals( "lru" ) )
+      database.setCache( new RecordCache.Lru<Integer, EliJames_HW8.Record<Book, Integer>>( cacheSize ) );
+    else if ( cache.equals( "clock" ) )
+      database.setCache( new RecordCache.Clock<Integer, EliJames_HW8.Record<Book, Integer>>( cacheSize ) );
+    else if ( !cache.equals( "none" ) )
+      throw new IllegalArgumentException( "Unknown cache policy " + cache );
+    this.metrics = metrics;
+    if ( metrics )
+      database.setMetrics( new DatabaseMetrics() );
+
+    final Random generator = new Random( 131 );
+    hits = new int[keyCount];
+    misses = new int[keyCount];
+    updates = new Book[keyCount];
+    for ( int i=0; i<keyCount; i++ ) {
+      hits[i] = ( random ? generator.nextInt( size ) : i % size );
+      misses[i] = size + i;
+      updates[i] = new Book( hits[i], "Update " + hits[i], 2016, 13.1 );
+    }
+    adds = new Book[batch];
+    for ( int i=0; i<batch; i++ )
+      adds[i] = BenchSupport.newBook( size + keyCount + i );
+    // Keys without repeats (a deleted key can only be deleted once).
+    final Set<Integer> distinct = new LinkedHashSet<Integer>();
+    while ( distinct.size() < batch )
+      distinct.add( random ? generator.nextInt( size ) : distinct.size() );
+    deletes = new int[batch];
+    int i = 0;
+    for ( Integer key : distinct )
+      deletes[i++] = key;
+  }
+
+  public Object getRecordHit() {
+    final EliJames_HW8.Record<Book, Integer> record = database.getRecord( hits[next++ & (keyCount - 1)] );
+    if ( record == null )
+      throw new IllegalStateException( "Missing key." );
+    return record;
+  }
+
+  public Object getRecordMiss() {
+    final EliJames_HW8.Record<Book, Integer> record = database.getRecord( misses[next++ & (keyCount - 1)] );
+    if ( record != null )
+      throw new IllegalStateException( "Unexpected key." );
+    return record;
+  }
+
+  public void updateRecord() { database.updateRecord( updates[next++ & (keyCount - 1)] ); }
+
+  public void addRecord() { database.addRecord( adds[added++] ); }
+
+  public void deleteRecord() { database.deleteRecord( deletes[deleted++] ); }
+
+  public void scan( final Consumer<Object> sink ) { database.scan().forEach( sink ); }
+
+  public void restore() {
+    while ( added > 0 )
+      database.deleteRecord( adds[--added].getISBN() );
+    while ( deleted > 0 )
+      database.addRecord( BenchSupport.newBook( deletes[--deleted] ) );
+  }
+
+  public void close() {
+    if ( metrics )
+      System.out.println( database.getMetrics() );
+    else if ( database.getCache() != null )
+      System.out.println( database.getCache() );
+    database.close();
+    for ( File file : directory.listFiles() )
+      file.delete();
+    directory.delete();
+  }
+
+} // End of DatabaseTarget class.
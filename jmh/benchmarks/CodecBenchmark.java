@@ -0,0 +1,84 @@
+/*************************************************************************
+ * Title: Record Encoding JMH Benchmark
+ * File: CodecBenchmark.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * JMH benchmark of the ReadWrite record encoding: a Book record written
+ * to and read back from a direct buffer, and from the start of a random
+ * access file. Each decoded record is returned, so JMH consumes it and
+ * the decode cannot be optimized away.
+ *
+ * Usage: java -jar target/benchmarks.jar CodecBenchmark [-prof gc]
+ *
+ * Notes:
+ *  (1) As OperationBenchmark, the benchmark drives the codec through its
+ *      Target interface, implemented by CodecTarget (default package).
+ *  (2) The record file is created in a temporary directory, and removed
+ *      when the trial ends.
+ *  (3) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *************************************************************************/
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 2 )
+@State( Scope.Thread )
+public class CodecBenchmark {
+
+  // The benchmarked record encodings (see CodecTarget).
+  public static interface Target {
+    public void open() throws Exception;
+    public Object writeBuffer() throws Exception;
+    public Object readBuffer() throws Exception;
+    public Object writeRaf() throws Exception;
+    public Object readRaf() throws Exception;
+    public void close() throws Exception;
+  }
+
+  private Target target;
+
+  @Setup( Level.Trial )
+  public void setup() throws Exception {
+    target = (Target)Class.forName( "CodecTarget" ).getDeclaredConstructor().newInstance();
+    target.open();
+  }
+
+  @TearDown( Level.Trial )
+  public void tearDown() throws Exception { target.close(); }
+
+  @Benchmark
+  public Object writeBuffer() throws Exception { return target.writeBuffer(); }
+
+  @Benchmark
+  public Object readBuffer() throws Exception { return target.readBuffer(); }
+
+  @Benchmark
+  public Object writeRaf() throws Exception { return target.writeRaf(); }
+
+  @Benchmark
+  public Object readRaf() throws Exception { return target.readRaf(); }
+
+} // End of CodecBenchmark class.
@@ -0,0 +1,147 @@
+/*************************************************************************
+ * Title: Database Operation JMH Benchmark
+ * File: OperationBenchmark.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * JMH benchmark of every Database operation (addRecord, getRecord hit
+ * and miss, updateRecord, deleteRecord and a full scan), over a set of
+ * database sizes and over sequential and random key distributions. The
+ * lookups return their records and the scan feeds each record to a
+ * Blackhole, so JMH consumes every result.
+ *
+ * Adds and deletes change the database, so they run in single shot
+ * batches of 1000 operations (scored per batch), and the database is put
+ * back between batches: the added records are deleted again and the
+ * deleted records added back.
+ *
+ * Usage: java -jar target/benchmarks.jar OperationBenchmark
+ *          [-p size=1000,100000] [-p keys=sequential,random] [-p engine=raf|mapped]
+ *          [-p cache=none|lru|clock] [-p cacheSize=10000] [-p sync=true|false]
+ *          [-p metrics=false|true] [-prof gc]
+ *
+ * With cache lru or clock, the database runs behind a record cache of that
+ * policy and size (in records). With sync false, changes do not wait for
+ * the write-ahead log to be synced (setSyncCommits). With metrics true, the
+ * database collects operation metrics (setMetrics), so their cost shows
+ * against a run without. The gc profiler reports bytes allocated per op.
+ *
+ * Notes:
+ *  (1) JMH does not take benchmarks in the default package, and the
+ *      program's classes are there (so cannot be named from a package).
+ *      The benchmark therefore drives the database through the Target
+ *      interface, which DatabaseTarget (default package) implements. The
+ *      one implementation keeps the calls monomorphic, so they inline.
+ *  (2) The database files are created in a temporary directory, and
+ *      removed when the trial ends.
+ *  (3) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Added record cache option. JME
+ *   10/18/2026: Added log sync option. JME
+ *   10/18/2026: Added metrics option. JME
+ *   10/18/2026: Rewritten as a JMH benchmark. JME
+ *************************************************************************/
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 2 )
+@State( Scope.Benchmark )
+public class OperationBenchmark {
+  public static final int BATCH = 1000;         // Adds or deletes per single shot batch.
+
+  // The benchmarked database operations (see DatabaseTarget).
+  public static interface Target {
+    public void open( int size, boolean random, boolean mapped, String cache, long cacheSize, boolean sync, boolean metrics ) throws Exception;
+    public Object getRecordHit();               // Next present key.
+    public Object getRecordMiss();              // Next absent key.
+    public void updateRecord();                 // Next present key.
+    public void addRecord();                    // Next new record of the batch.
+    public void deleteRecord();                 // Next distinct present key of the batch.
+    public void scan( Consumer<Object> sink );  // All live records.
+    public void restore();                      // Undo the batch's adds and deletes.
+    public void close();
+  }
+
+  @Param( { "1000", "100000" } )
+  public int size;                              // Records in the database (at least a batch).
+  @Param( { "sequential", "random" } )
+  public String keys;                           // Key distribution.
+  @Param( { "raf" } )
+  public String engine;                         // Record I/O engine, raf or mapped.
+  @Param( { "none" } )
+  public String cache;                          // Record cache policy, none, lru or clock.
+  @Param( { "10000" } )
+  public long cacheSize;                        // Record cache size (records).
+  @Param( { "true" } )
+  public boolean sync;                          // Wait for log syncs.
+  @Param( { "false" } )
+  public boolean metrics;                       // Collect operation metrics.
+
+  private Target target;
+
+  @Setup( Level.Trial )
+  public void setup() throws Exception {
+    target = (Target)Class.forName( "DatabaseTarget" ).getDeclaredConstructor().newInstance();
+    target.open( size, keys.equals( "random" ), engine.equals( "mapped" ), cache, cacheSize, sync, metrics );
+  }
+
+  @TearDown( Level.Iteration )
+  public void restore() { target.restore(); }
+
+  @TearDown( Level.Trial )
+  public void tearDown() { target.close(); }
+
+  @Benchmark
+  public Object getRecordHit() { return target.getRecordHit(); }
+
+  @Benchmark
+  public Object getRecordMiss() { return target.getRecordMiss(); }
+
+  @Benchmark
+  public void updateRecord() { target.updateRecord(); }
+
+  @Benchmark
+  @BenchmarkMode( Mode.SingleShotTime )
+  @OutputTimeUnit( TimeUnit.MILLISECONDS )
+  @Warmup( iterations = 5, batchSize = BATCH )
+  @Measurement( iterations = 10, batchSize = BATCH )
+  public void addRecord() { target.addRecord(); }
+
+  @Benchmark
+  @BenchmarkMode( Mode.SingleShotTime )
+  @OutputTimeUnit( TimeUnit.MILLISECONDS )
+  @Warmup( iterations = 5, batchSize = BATCH )
+  @Measurement( iterations = 10, batchSize = BATCH )
+  public void deleteRecord() { target.deleteRecord(); }
+
+  // Full scan of the live records, scored per scan.
+  @Benchmark
+  @OutputTimeUnit( TimeUnit.MICROSECONDS )
+  public void scan( final Blackhole blackhole ) { target.scan( blackhole::consume ); }
+
+} // End of OperationBenchmark class.
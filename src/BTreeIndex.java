@@ -0,0 +1,461 @@
+/*************************************************************************
+ * Title: Persistent B+Tree Index
+ * File: BTreeIndex.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This class implements a simple on-disk B+tree mapping a (numeric)
+ * field value to the slot numbers of the records holding that value. It
+ * is used for ordered secondary indexes, answering range queries by
+ * walking the linked leaf pages from the first matching entry, so a
+ * query only touches the pages holding matching entries. Entries are
+ * (value, slot) pairs ordered by value then slot, so duplicate values
+ * are allowed and every entry is unique.
+ *
+ * Index file layout (fixed size pages, page 0 is the header):
+ *   Header: magic (int), version (int), clean flag (int), page size (int),
+ *           root page (long), pages (long), entries (long), stamp (long).
+ *   Leaf page: type (byte), count (short), next leaf page (long), then
+ *              count entries of value (double), slot (long).
+ *   Internal page: type (byte), count (short), first child page (long),
+ *                  then count separators of value (double), slot (long),
+ *                  right child page (long).
+ *
+ * Notes:
+ *  (1) Deletes simply remove the leaf entry; pages are not merged (an
+ *      emptied leaf stays linked). The tree is rebuilt compactly by
+ *      clear() when the database is compacted.
+ *  (2) The clean flag is cleared on the first change and only set
+ *      again by close(). An index which was not
+ *      closed cleanly, or whose stamp does not match the database, is
+ *      considered stale and should be rebuilt by the caller.
+ *  (3) The index is safe for concurrent use. Cursors read a page at a
+ *      time under a read lock, so they are weakly consistent (they see
+ *      entries present when each leaf was read), while changes take the
+ *      write lock.
+ *  (4) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *************************************************************************/
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class BTreeIndex implements AutoCloseable {
+  /*********************************************************************
+   * Constants.
+   *********************************************************************/
+  private static final int MAGIC = 0x42494458;     // "BIDX".
+  private static final int VERSION = 1;            // Index format version.
+  private static final int PAGE_SIZE = 4096;       // Size of index page in bytes.
+  private static final byte INTERNAL = 0, LEAF = 1; // Page types.
+  private static final int NODE_HEADER = 11;       // Type, count and next leaf (or first child).
+  private static final int LEAF_ENTRY = 16;        // Value, slot.
+  private static final int INTERNAL_ENTRY = 24;    // Value, slot, right child.
+  private static final int LEAF_CAPACITY = ( PAGE_SIZE - NODE_HEADER ) / LEAF_ENTRY;
+  private static final int INTERNAL_CAPACITY = ( PAGE_SIZE - NODE_HEADER ) / INTERNAL_ENTRY;
+  private static final long NONE = -1;             // No (next leaf) page.
+
+  /*********************************************************************
+   * Instance fields (all private)
+   *********************************************************************/
+  private RandomAccessFile idxFile = null;         // Index file.
+  private FileChannel channel = null;              // Index file channel (positional I/O).
+  private long root = 1;                           // Root page.
+  private long pages = 0;                          // Number of pages (including header).
+  private volatile long entries = 0;               // Number of entries.
+  private boolean clean = false;                   // Index closed cleanly.
+  private long stamp = -1;                         // Caller supplied staleness stamp.
+  private boolean changed = false;                 // Last insert/remove changed the tree.
+  private final ReadWriteLock lock = new ReentrantReadWriteLock(); // Cursors share, changes exclude.
+  private final ThreadLocal<ByteBuffer> page = ThreadLocal.withInitial( () -> ByteBuffer.allocate( PAGE_SIZE ) ); // Per thread page buffer.
+
+  // In memory copy of a page. Arrays hold one spare entry so a full page may overflow before splitting.
+  private static class Node {
+    final long page;       // Page number.
+    final boolean leaf;    // Leaf or internal page.
+    int count = 0;         // Number of entries (leaf) or separators (internal).
+    final double[] values;
+    final long[] slots;
+    final long[] children; // Internal page children (count + 1), null for a leaf.
+    long next = NONE;      // Next leaf page.
+
+    Node( final long page, final boolean leaf ) {
+      final int capacity = ( leaf ? LEAF_CAPACITY : INTERNAL_CAPACITY ) + 1;
+      this.page = page;
+      this.leaf = leaf;
+      this.values = new double[capacity];
+      this.slots = new long[capacity];
+      this.children = ( leaf ? null : new long[capacity + 1] );
+    }
+  }
+
+  // Split of a page, passing the separator and new right page up to the parent.
+  private static class Split {
+    final double value;
+    final long slot;
+    final long page;
+
+    Split( final double value, final long slot, final long page ) {
+      this.value = value;
+      this.slot = slot;
+      this.page = page;
+    }
+  }
+
+  /*********************************************************************
+   * Class constructor, opens (or creates) the index file.
+   *********************************************************************/
+  public BTreeIndex( final String file ) throws IOException {
+    idxFile = new RandomAccessFile( file, "rw" );
+    channel = idxFile.getChannel();
+    if ( idxFile.length() >= PAGE_SIZE ) {
+      idxFile.seek( 0 );
+      if ( idxFile.readInt() == MAGIC && idxFile.readInt() == VERSION ) {
+        clean = ( idxFile.readInt() != 0 );
+        if ( idxFile.readInt() != PAGE_SIZE )
+          clean = false;
+        root = idxFile.readLong();
+        pages = idxFile.readLong();
+        entries = idxFile.readLong();
+        stamp = idxFile.readLong();
+      }
+    }
+    // Guard against a truncated or foreign file.
+    if ( pages < 2 || idxFile.length() != pages*PAGE_SIZE || root < 1 || root >= pages )
+      clean = false;
+    if ( !clean )
+      clear();
+  }
+
+  // True when the index was closed cleanly with the supplied stamp.
+  public boolean isValid( final long stamp ) { return clean && this.stamp == stamp; }
+
+  // Number of index entries.
+  public long size() { return entries; }
+
+  // Empties the index (a single empty leaf).
+  public void clear() throws IOException {
+    lock.writeLock().lock();
+    try {
+      idxFile.setLength( PAGE_SIZE );
+      pages = 1;
+      entries = 0;
+      final Node leaf = newNode( true );
+      writeNode( leaf );
+      root = leaf.page;
+      clean = false;
+      writeHeader();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // Add (value, slot) entry, if not already present.
+  public void insert( final double value, final long slot ) throws IOException {
+    lock.writeLock().lock();
+    try {
+      markDirty();
+      changed = false;
+      final Split split = insert( readNode( root ), value, slot );
+      if ( split != null ) {
+        // Root split, grow tree by one level.
+        final Node node = newNode( false );
+        node.children[0] = root;
+        node.values[0] = split.value;
+        node.slots[0] = split.slot;
+        node.children[1] = split.page;
+        node.count = 1;
+        writeNode( node );
+        root = node.page;
+      }
+      if ( changed )
+        entries++;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // Remove (value, slot) entry, returns true if it was present.
+  public boolean remove( final double value, final long slot ) throws IOException {
+    lock.writeLock().lock();
+    try {
+      markDirty();
+      Node node = readNode( root );
+      while ( !node.leaf )
+        node = readNode( node.children[upperBound( node, value, slot )] );
+      final int i = lowerBound( node, value, slot );
+      if ( i == node.count || compare( node.values[i], node.slots[i], value, slot ) != 0 )
+        return false;
+      System.arraycopy( node.values, i + 1, node.values, i, node.count - i - 1 );
+      System.arraycopy( node.slots, i + 1, node.slots, i, node.count - i - 1 );
+      node.count--;
+      writeNode( node );
+      entries--;
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // Return cursor over the slots of entries with from <= value <= to, in value order.
+  public Cursor range( final double from, final double to ) { return new Cursor( from, to ); }
+
+  // Writes a clean header with the supplied stamp and closes the index file.
+  public void close( final long stamp ) {
+    lock.writeLock().lock();
+    try {
+      if ( idxFile == null )
+        return;
+      this.stamp = stamp;
+      clean = true;
+      writeHeader();
+    } catch ( IOException e ) {
+      ; // Eat exception, index will be rebuilt upon next open.
+    } finally {
+      lock.writeLock().unlock();
+    }
+    close();
+  }
+
+  // Closes index file (without marking it clean).
+  public void close() {
+    lock.writeLock().lock();
+    try {
+      if ( idxFile != null ) {
+        try {
+          idxFile.close();
+        } catch( Exception e ) {
+          ; // Eat exception, nothing further to be done here.
+        }
+        idxFile = null;
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /*********************************************************************
+   * This class walks the leaf entries of a value range. Leaf pages are
+   * read one at a time (on demand), following the leaf chain.
+   *********************************************************************/
+  public class Cursor {
+    private final double from; // Lower bound of range (inclusive).
+    private final double to;   // Upper bound of range (inclusive).
+    private Node leaf = null;  // Current leaf page (null until first read).
+    private int i = 0;         // Next entry in leaf.
+    private double value;      // Value of current entry.
+    private long slot;         // Slot of current entry.
+    private boolean done = false; // Range exhausted.
+
+    private Cursor( final double from, final double to ) {
+      this.from = from;
+      this.to = to;
+    }
+
+    // Advance to the next entry, returns false at the end of the range.
+    public boolean next() throws IOException {
+      if ( done )
+        return false;
+      lock.readLock().lock();
+      try {
+        if ( leaf == null ) {
+          // Descend to leaf holding the first entry >= from.
+          leaf = readNode( root );
+          while ( !leaf.leaf )
+            leaf = readNode( leaf.children[upperBound( leaf, from, Long.MIN_VALUE )] );
+          i = lowerBound( leaf, from, Long.MIN_VALUE );
+        }
+        while ( i == leaf.count ) {
+          if ( leaf.next == NONE ) {
+            done = true;
+            return false;
+          }
+          leaf = readNode( leaf.next );
+          i = 0;
+        }
+      } finally {
+        lock.readLock().unlock();
+      }
+      value = leaf.values[i];
+      slot = leaf.slots[i++];
+      if ( Double.compare( value, to ) > 0 ) {
+        done = true;
+        return false;
+      }
+      return true;
+    }
+
+    public double value() { return value; } // Value of current entry.
+    public long slot() { return slot; }     // Slot of current entry.
+  } // End of Cursor class.
+
+  /*********************************************************************
+   * Private helper methods.
+   *********************************************************************/
+  // Insert into subtree, returning the split (or null) for the parent.
+  private Split insert( final Node node, final double value, final long slot ) throws IOException {
+    if ( node.leaf ) {
+      final int i = lowerBound( node, value, slot );
+      if ( i < node.count && compare( node.values[i], node.slots[i], value, slot ) == 0 )
+        return null; // Already present.
+      System.arraycopy( node.values, i, node.values, i + 1, node.count - i );
+      System.arraycopy( node.slots, i, node.slots, i + 1, node.count - i );
+      node.values[i] = value;
+      node.slots[i] = slot;
+      node.count++;
+      changed = true;
+      if ( node.count <= LEAF_CAPACITY ) {
+        writeNode( node );
+        return null;
+      }
+      // Split leaf, upper half moves to a new right sibling.
+      final Node right = newNode( true );
+      final int half = node.count/2;
+      right.count = node.count - half;
+      System.arraycopy( node.values, half, right.values, 0, right.count );
+      System.arraycopy( node.slots, half, right.slots, 0, right.count );
+      node.count = half;
+      right.next = node.next;
+      node.next = right.page;
+      writeNode( right );
+      writeNode( node );
+      return new Split( right.values[0], right.slots[0], right.page );
+    }
+
+    final int i = upperBound( node, value, slot );
+    final Split split = insert( readNode( node.children[i] ), value, slot );
+    if ( split == null )
+      return null;
+    // Insert separator for new child.
+    System.arraycopy( node.values, i, node.values, i + 1, node.count - i );
+    System.arraycopy( node.slots, i, node.slots, i + 1, node.count - i );
+    System.arraycopy( node.children, i + 1, node.children, i + 2, node.count - i );
+    node.values[i] = split.value;
+    node.slots[i] = split.slot;
+    node.children[i + 1] = split.page;
+    node.count++;
+    if ( node.count <= INTERNAL_CAPACITY ) {
+      writeNode( node );
+      return null;
+    }
+    // Split internal page, middle separator moves up to the parent.
+    final Node right = newNode( false );
+    final int mid = node.count/2;
+    right.count = node.count - mid - 1;
+    System.arraycopy( node.values, mid + 1, right.values, 0, right.count );
+    System.arraycopy( node.slots, mid + 1, right.slots, 0, right.count );
+    System.arraycopy( node.children, mid + 1, right.children, 0, right.count + 1 );
+    node.count = mid;
+    writeNode( right );
+    writeNode( node );
+    return new Split( node.values[mid], node.slots[mid], right.page );
+  }
+
+  // Orders entries by value, then slot.
+  private static int compare( final double v1, final long s1, final double v2, final long s2 ) {
+    final int c = Double.compare( v1, v2 );
+    return ( c != 0 ? c : Long.compare( s1, s2 ) );
+  }
+
+  // Index of first entry >= (value, slot).
+  private static int lowerBound( final Node node, final double value, final long slot ) {
+    int lo = 0, hi = node.count;
+    while ( lo < hi ) {
+      final int mid = ( lo + hi ) >>> 1;
+      if ( compare( node.values[mid], node.slots[mid], value, slot ) < 0 )
+        lo = mid + 1;
+      else
+        hi = mid;
+    }
+    return lo;
+  }
+
+  // Index of first entry > (value, slot), which is the child of an internal page holding it.
+  private static int upperBound( final Node node, final double value, final long slot ) {
+    int lo = 0, hi = node.count;
+    while ( lo < hi ) {
+      final int mid = ( lo + hi ) >>> 1;
+      if ( compare( node.values[mid], node.slots[mid], value, slot ) <= 0 )
+        lo = mid + 1;
+      else
+        hi = mid;
+    }
+    return lo;
+  }
+
+  // First change since opening clears the clean flag on disk.
+  private void markDirty() throws IOException {
+    if ( clean ) {
+      clean = false;
+      writeHeader();
+    }
+  }
+
+  private void writeHeader() throws IOException {
+    final ByteBuffer header = ByteBuffer.allocate( 48 );
+    header.putInt( MAGIC ).putInt( VERSION ).putInt( clean ? 1 : 0 ).putInt( PAGE_SIZE );
+    header.putLong( root ).putLong( pages ).putLong( entries ).putLong( stamp );
+    header.flip();
+    writeFully( header, 0 );
+  }
+
+  // Allocate a new (empty) page at the end of the file.
+  private Node newNode( final boolean leaf ) { return new Node( pages++, leaf ); }
+
+  private Node readNode( final long n ) throws IOException {
+    final ByteBuffer buffer = page.get();
+    buffer.clear();
+    while ( buffer.hasRemaining() )
+      if ( channel.read( buffer, n*PAGE_SIZE + buffer.position() ) < 0 )
+        throw new IOException( "Unexpected end of index file" );
+    buffer.flip();
+    final Node node = new Node( n, buffer.get() == LEAF );
+    node.count = buffer.getShort();
+    if ( node.leaf ) {
+      node.next = buffer.getLong();
+      for ( int i=0; i<node.count; i++ ) {
+        node.values[i] = buffer.getDouble();
+        node.slots[i] = buffer.getLong();
+      }
+    } else {
+      node.children[0] = buffer.getLong();
+      for ( int i=0; i<node.count; i++ ) {
+        node.values[i] = buffer.getDouble();
+        node.slots[i] = buffer.getLong();
+        node.children[i + 1] = buffer.getLong();
+      }
+    }
+    return node;
+  }
+
+  private void writeNode( final Node node ) throws IOException {
+    final ByteBuffer buffer = page.get();
+    buffer.clear();
+    buffer.put( node.leaf ? LEAF : INTERNAL ).putShort( (short)node.count );
+    if ( node.leaf ) {
+      buffer.putLong( node.next );
+      for ( int i=0; i<node.count; i++ )
+        buffer.putDouble( node.values[i] ).putLong( node.slots[i] );
+    } else {
+      buffer.putLong( node.children[0] );
+      for ( int i=0; i<node.count; i++ )
+        buffer.putDouble( node.values[i] ).putLong( node.slots[i] ).putLong( node.children[i + 1] );
+    }
+    buffer.clear(); // Whole page, so the file always holds complete pages.
+    writeFully( buffer, node.page*PAGE_SIZE );
+  }
+
+  // Write buffer (from position 0) at file position.
+  private void writeFully( final ByteBuffer buffer, final long position ) throws IOException {
+    while ( buffer.hasRemaining() )
+      channel.write( buffer, position + buffer.position() );
+  }
+
+} // End of BTreeIndex class.
@@ -9,6 +9,8 @@
  * key field. The fields are all defined as private. The class includes 
  * just basic constructors, getters, setters and an overridden toString 
  * method for all of the fields. No input validation is performed.
+ * The stored fields are marked (DbField) with their place in the record,
+ * from which CodecGenerator generates the record codec (BookCodec).
  *
  * Notes:
  *  (1) Other than the special constructor (see below), this class
@@ -23,14 +25,21 @@
  *   09/12/2016: Initial release. JME
  *   09/14/2016: Modified to work with Generic database. JME
  *   09/23/2016: Added IllegalArgumentException to constructor. JME
+ *   10/18/2026: ISBN held unboxed, copy constructor uses accessors. JME
+ *   10/18/2026: Added record schema (DbField annotations). JME
+ *   10/18/2026: ISBN accessors are unboxed (int). JME
  *************************************************************************/
 public class Book {
   /*********************************************************************
    * Instance fields (all private)
    *********************************************************************/
-  private Integer isbn;      // Book ISBN.
+  @DbField( order = 1, key = true, property = "ISBN" )
+  private int isbn;          // Book ISBN.
+  @DbField( order = 2, length = 48 )
   private String title;      // Book title.
+  @DbField( order = 4 )
   private int yearPublished; // Year book was published.
+  @DbField( order = 3 )
   private double price;      // Book price.
   
   /*********************************************************************
@@ -45,7 +54,7 @@ public class Book {
   }
   
   // 4-parameter constructor.
-  public Book( Integer isbn, String title, int year, double price ) {
+  public Book( int isbn, String title, int year, double price ) {
     setISBN( isbn );
     setTitle( title );
     setYearPublished( year );
@@ -55,10 +64,10 @@ public class Book {
   // Note, this is a required special self-referential constructor.
   public Book( Object o ) throws IllegalArgumentException {
     if ( o instanceof Book ) {
-      setISBN( ((Book)o).isbn );
-      setTitle( ((Book)o).title );
-      setYearPublished( ((Book)o).yearPublished );
-      setPrice( ((Book)o).price );
+      setISBN( ((Book)o).getISBN() );
+      setTitle( ((Book)o).getTitle() );
+      setYearPublished( ((Book)o).getYearPublished() );
+      setPrice( ((Book)o).getPrice() );
     } else 
       throw new IllegalArgumentException( "Improper call to Book class constructor." );
   }
@@ -66,7 +75,7 @@ public class Book {
   /*********************************************************************
    * Class mutators.
    *********************************************************************/
-  public void setISBN( Integer isbn ) { this.isbn = isbn; }
+  public void setISBN( int isbn ) { this.isbn = isbn; }
   public void setTitle( String title ) { this.title = title; }
   public void setPrice( double price ) { this.price = price; }
   public void setYearPublished( int year ) { this.yearPublished = year; }
@@ -74,7 +83,7 @@ public class Book {
   /*********************************************************************
    * Class accessors.
    *********************************************************************/
-  public Integer getISBN() { return this.isbn; }
+  public int getISBN() { return this.isbn; }
   public String getTitle() { return this.title; }
   public double getPrice() { return this.price; }
   public int getYearPublished() { return this.yearPublished; }
@@ -0,0 +1,120 @@
+/*************************************************************************
+ * Generated by CodecGenerator from Book -- do not edit.
+ *
+ * Record codec (see RecordCodec) of the DbField schema of Book.
+ * Regenerate it when the schema changes:
+ *   java CodecGenerator Book src
+ *
+ * Record layout (65 bytes):
+ *   #1 isbn (int, key)
+ *   #2 title (String, 48 bytes)
+ *   #3 price (double)
+ *   #4 yearPublished (int)
+ *************************************************************************/
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class BookCodec implements RecordCodec<Book> {
+  public static final int SIZE = 65; // Encoded size in bytes.
+
+  // Field numbers (schema order).
+  public static final int ISBN = 1;
+  public static final int TITLE = 2;
+  public static final int PRICE = 3;
+  public static final int YEAR_PUBLISHED = 4;
+
+  public int size() { return SIZE; }
+
+  public int key( final Book value ) { return value.getISBN(); }
+
+  public Book newValue() { return new Book(); }
+
+  public Book newFlyweight() { return new Flyweight(); }
+
+  public Book copy( final Book value ) {
+    final Book copy = new Book();
+    copy.setISBN( value.getISBN() );
+    copy.setTitle( value.getTitle() );
+    copy.setPrice( value.getPrice() );
+    copy.setYearPublished( value.getYearPublished() );
+    return copy;
+  }
+
+  public void encode( final ByteBuffer buffer, final Book value ) {
+    // Strings are encoded first, so one which does not fit fails before anything is written.
+    final byte[] titleBytes = RecordCodec.encodeString( value.getTitle(), 48, "Title" );
+    // Field #1 (isbn).
+    buffer.putInt( value.getISBN() );
+    // Field #2 (title).
+    RecordCodec.putString( buffer, titleBytes, 48 );
+    // Field #3 (price).
+    buffer.putDouble( value.getPrice() );
+    // Field #4 (yearPublished).
+    buffer.putInt( value.getYearPublished() );
+  }
+
+  public void decode( final ByteBuffer buffer, final Book value ) {
+    // Field #1 (isbn).
+    value.setISBN( buffer.getInt() );
+    // Field #2 (title).
+    value.setTitle( RecordCodec.getString( buffer, 48 ) );
+    // Field #3 (price).
+    value.setPrice( buffer.getDouble() );
+    // Field #4 (yearPublished).
+    value.setYearPublished( buffer.getInt() );
+  }
+
+  public void decodeFlyweight( final ByteBuffer buffer, final Book value ) {
+    if ( !( value instanceof RecordCodec.LazyStrings ) ) {
+      decode( buffer, value );
+      return;
+    }
+    final RecordCodec.LazyStrings strings = (RecordCodec.LazyStrings)value;
+    // Field #1 (isbn).
+    value.setISBN( buffer.getInt() );
+    // Field #2 (title).
+    RecordCodec.getString( buffer, 48, TITLE, strings );
+    // Field #3 (price).
+    value.setPrice( buffer.getDouble() );
+    // Field #4 (yearPublished).
+    value.setYearPublished( buffer.getInt() );
+  }
+
+  public Book decode( final ByteBuffer buffer ) {
+    final Book value = newValue();
+    decode( buffer, value );
+    return value;
+  }
+
+  // Flyweight Book (see newFlyweight), holding its Strings encoded until read.
+  private static final class Flyweight extends Book implements RecordCodec.LazyStrings {
+    private final byte[] titleBytes = new byte[48]; // Undecoded UTF-8 title, if titlePending.
+    private int titleLength = 0; // Length of undecoded title.
+    private boolean titlePending = false; // Title not yet decoded from titleBytes.
+
+    @Override
+    public String getTitle() {
+      if ( titlePending ) {
+        super.setTitle( new String( titleBytes, 0, titleLength, StandardCharsets.UTF_8 ) );
+        titlePending = false;
+      }
+      return super.getTitle();
+    }
+
+    @Override
+    public void setTitle( final String value ) {
+      titlePending = false;
+      super.setTitle( value );
+    }
+
+    public void setEncodedString( final int field, final ByteBuffer buffer, final int length ) {
+      if ( field == TITLE ) {
+        buffer.get( titleBytes, 0, length );
+        titleLength = length;
+        titlePending = true;
+      } else
+        throw new IllegalArgumentException( "No String field #" + field + "." );
+    }
+  } // End of Flyweight class.
+
+} // End of BookCodec class.
@@ -0,0 +1,376 @@
+/*************************************************************************
+ * Title: Record Codec Generator
+ * File: CodecGenerator.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This program generates the record codec (see RecordCodec) of an
+ * entity class from its schema, the fields marked with DbField. The
+ * codec is written as Java source (the entity name + "Codec", e.g.
+ * BookCodec.java for Book) which encodes and decodes each field in
+ * schema order through the entity's accessors, exactly as a hand
+ * written codec would, so it is as fast as one. The schema is only
+ * read here, at build time; nothing is reflected upon at run time.
+ *
+ * Usage: java CodecGenerator entityClass [directory]   (default .)
+ *
+ * For example, after changing the schema of Book:
+ *   javac -d out src/*.java && java -cp out CodecGenerator Book src
+ * then compile again.
+ *
+ * Notes:
+ *  (1) A schema is rejected (and nothing written) if it has no fields,
+ *      a repeated order, other than one int key field, a String field
+ *      without a width (or wider than 65535 bytes), an unsupported field
+ *      type, a missing public accessor (or one of another type than its
+ *      field), or no public naked constructor.
+ *  (2) Fields of superclasses are part of the schema.
+ *  (3) The generated source has no date or author, so it only changes
+ *      when the schema does.
+ *  (4) The codec of an entity with String fields also defines its
+ *      flyweight (see RecordCodec.newFlyweight), a subclass of the entity
+ *      whose String getters decode on first use, unless the entity class
+ *      or one of its String accessors is final (then a flyweight decode
+ *      decodes every field). The entity's own methods must then read its
+ *      String fields through their getters, as Book's do.
+ *  (5) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Check accessor types, added flyweight decode. JME
+ *   10/18/2026: Generate new value, copy and the flyweight subclass. JME
+ *************************************************************************/
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CodecGenerator {
+  // A stored field of the schema.
+  private static class Column {
+    final Field field;                             // Entity field.
+    final DbField schema;                          // Its annotation.
+    final String property;                         // Accessor property name.
+
+    Column( final Field field ) {
+      this.field = field;
+      this.schema = field.getAnnotation( DbField.class );
+      this.property = ( schema.property().isEmpty() ? Character.toUpperCase( field.getName().charAt( 0 ) ) + field.getName().substring( 1 )
+                                                    : schema.property() );
+    }
+
+    Class<?> type() { return field.getType(); }
+    String getter() { return ( type() == boolean.class ? "is" : "get" ) + property; }
+    String setter() { return "set" + property; }
+
+    // Encoded size in bytes.
+    int size() {
+      if ( type() == String.class )
+        return ( schema.length() > 0xff ? 2 : 1 ) + schema.length();
+      if ( type() == boolean.class || type() == byte.class )
+        return 1;
+      if ( type() == short.class || type() == char.class )
+        return 2;
+      if ( type() == int.class || type() == float.class )
+        return 4;
+      return 8; // long, double.
+    }
+
+    // ByteBuffer accessor suffix of a primitive type (e.g. "Int" for putInt/getInt).
+    String bufferType() {
+      if ( type() == byte.class )
+        return "";
+      final String name = type().getName();
+      return Character.toUpperCase( name.charAt( 0 ) ) + name.substring( 1 );
+    }
+  }
+
+  public static void main( String[] args ) {
+    if ( args.length < 1 ) {
+      System.out.println( "Usage: java CodecGenerator entityClass [directory]" );
+      System.exit( 1 );
+    }
+    try {
+      final Class<?> type = Class.forName( args[0] );
+      final String directory = ( args.length > 1 ? args[1] : "." );
+      final File file = new File( directory, type.getSimpleName() + "Codec.java" );
+      final List<Column> columns = schema( type );
+      try ( PrintWriter out = new PrintWriter( file, StandardCharsets.UTF_8.name() ) ) {
+        generate( type, columns, directory, out );
+      }
+      System.out.printf( "Generated %s (%d fields, %d bytes).%n", file.getPath(), columns.size(), recordSize( columns ) );
+    } catch ( ClassNotFoundException e ) {
+      System.out.println( "Unable to find class " + args[0] + "." );
+      System.exit( 1 );
+    } catch ( IllegalArgumentException | IOException e ) {
+      System.out.println( "Unable to generate codec, " + e.getMessage() + "." );
+      System.exit( 1 );
+    }
+  }
+
+  // Stored fields of type (and its superclasses), in schema order, validated.
+  private static List<Column> schema( final Class<?> type ) {
+    final List<Column> columns = new ArrayList<Column>();
+    for ( Class<?> c=type; c!=null; c=c.getSuperclass() )
+      for ( Field field : c.getDeclaredFields() )
+        if ( field.isAnnotationPresent( DbField.class ) )
+          columns.add( new Column( field ) );
+    if ( columns.isEmpty() )
+      throw new IllegalArgumentException( type.getName() + " has no DbField fields" );
+    columns.sort( ( a, b ) -> Integer.compare( a.schema.order(), b.schema.order() ) );
+    int keys = 0;
+    for ( int i=0; i<columns.size(); i++ ) {
+      final Column column = columns.get( i );
+      if ( i > 0 && columns.get( i - 1 ).schema.order() == column.schema.order() )
+        throw new IllegalArgumentException( "fields " + columns.get( i - 1 ).field.getName() + " and " + column.field.getName() + " have the same order" );
+      if ( column.schema.key() ) {
+        if ( column.type() != int.class )
+          throw new IllegalArgumentException( "key field " + column.field.getName() + " is not an int" );
+        keys++;
+      }
+      if ( column.type() == String.class ) {
+        if ( column.schema.length() <= 0 || column.schema.length() > 0xffff )
+          throw new IllegalArgumentException( "String field " + column.field.getName() + " needs a length of 1 to 65535 bytes" );
+      } else if ( !column.type().isPrimitive() || column.type() == void.class )
+        throw new IllegalArgumentException( "field " + column.field.getName() + " has unsupported type " + column.type().getName() );
+      accessors( type, column );
+    }
+    if ( keys != 1 )
+      throw new IllegalArgumentException( type.getName() + " needs exactly one key field (has " + keys + ")" );
+    try {
+      type.getConstructor();
+    } catch ( NoSuchMethodException e ) {
+      throw new IllegalArgumentException( type.getName() + " has no public naked constructor" );
+    }
+    return columns;
+  }
+
+  // Check type has a public getter returning the column's field type, and a public setter taking it.
+  private static void accessors( final Class<?> type, final Column column ) {
+    try {
+      final Method getter = type.getMethod( column.getter() );
+      if ( getter.getReturnType() != column.type() )
+        throw new IllegalArgumentException( type.getName() + "." + column.getter() + " returns " + getter.getReturnType().getName()
+                                            + ", not " + column.type().getName() );
+    } catch ( NoSuchMethodException e ) {
+      throw new IllegalArgumentException( type.getName() + " has no public " + column.getter() + "() method" );
+    }
+    try {
+      type.getMethod( column.setter(), column.type() );
+    } catch ( NoSuchMethodException e ) {
+      throw new IllegalArgumentException( type.getName() + " has no public " + column.setter() + "(" + column.type().getName() + ") method" );
+    }
+  }
+
+  // Entity may be subclassed by a flyweight holding its String fields encoded (it has String fields,
+  // and neither the class nor their accessors are final).
+  private static boolean lazy( final Class<?> type, final List<Column> columns ) {
+    if ( Modifier.isFinal( type.getModifiers() ) || !Modifier.isPublic( type.getModifiers() ) )
+      return false;
+    boolean strings = false;
+    for ( Column column : columns )
+      if ( column.type() == String.class ) {
+        try {
+          if ( Modifier.isFinal( type.getMethod( column.getter() ).getModifiers() )
+               || Modifier.isFinal( type.getMethod( column.setter(), String.class ).getModifiers() ) )
+            return false;
+        } catch ( NoSuchMethodException e ) {
+          return false;
+        }
+        strings = true;
+      }
+    return strings;
+  }
+
+  // Expression reading a column's value from buffer.
+  private static String getField( final Column column ) {
+    if ( column.type() == String.class )
+      return "RecordCodec.getString( buffer, " + column.schema.length() + " )";
+    if ( column.type() == boolean.class )
+      return "buffer.get() != 0";
+    return "buffer.get" + column.bufferType() + "()";
+  }
+
+  // Constant name of a field number (e.g. YEAR_PUBLISHED for yearPublished).
+  private static String constant( final String field ) {
+    return field.replaceAll( "([a-z0-9])([A-Z])", "$1_$2" ).toUpperCase();
+  }
+
+  private static int recordSize( final List<Column> columns ) {
+    int size = 0;
+    for ( Column column : columns )
+      size += column.size();
+    return size;
+  }
+
+  // Write codec source (to be written into directory).
+  private static void generate( final Class<?> type, final List<Column> columns, final String directory, final PrintWriter out ) {
+    final String entity = type.getSimpleName(), codec = entity + "Codec";
+    final String rule = "*************************************************************************";
+    out.println( "/" + rule );
+    out.println( " * Generated by CodecGenerator from " + entity + " -- do not edit." );
+    out.println( " *" );
+    out.println( " * Record codec (see RecordCodec) of the DbField schema of " + entity + "." );
+    out.println( " * Regenerate it when the schema changes:" );
+    out.println( " *   java CodecGenerator " + type.getName() + " " + directory );
+    out.println( " *" );
+    out.println( " * Record layout (" + recordSize( columns ) + " bytes):" );
+    for ( int i=0; i<columns.size(); i++ ) {
+      final Column column = columns.get( i );
+      out.println( " *   #" + (i + 1) + " " + column.field.getName() + " (" + column.type().getSimpleName()
+                   + ( column.type() == String.class ? ", " + column.schema.length() + " bytes" : "" )
+                   + ( column.schema.key() ? ", key" : "" ) + ")" );
+    }
+    out.println( " " + rule + "/" );
+    final boolean lazy = lazy( type, columns );
+    out.println( "import java.nio.ByteBuffer;" );
+    if ( lazy )
+      out.println( "import java.nio.charset.StandardCharsets;" );
+    out.println();
+    out.println( "public class " + codec + " implements RecordCodec<" + entity + "> {" );
+    out.println( "  public static final int SIZE = " + recordSize( columns ) + "; // Encoded size in bytes." );
+    out.println();
+    out.println( "  // Field numbers (schema order)." );
+    for ( int i=0; i<columns.size(); i++ )
+      out.println( "  public static final int " + constant( columns.get( i ).field.getName() ) + " = " + (i + 1) + ";" );
+    out.println();
+    out.println( "  public int size() { return SIZE; }" );
+    out.println();
+    for ( Column column : columns )
+      if ( column.schema.key() )
+        out.println( "  public int key( final " + entity + " value ) { return value." + column.getter() + "(); }" );
+    out.println();
+    out.println( "  public " + entity + " newValue() { return new " + entity + "(); }" );
+    out.println();
+    if ( lazy ) {
+      out.println( "  public " + entity + " newFlyweight() { return new Flyweight(); }" );
+      out.println();
+    }
+    // Copy.
+    out.println( "  public " + entity + " copy( final " + entity + " value ) {" );
+    out.println( "    final " + entity + " copy = new " + entity + "();" );
+    for ( Column column : columns )
+      out.println( "    copy." + column.setter() + "( value." + column.getter() + "() );" );
+    out.println( "    return copy;" );
+    out.println( "  }" );
+    out.println();
+    // Encode.
+    out.println( "  public void encode( final ByteBuffer buffer, final " + entity + " value ) {" );
+    boolean strings = false;
+    for ( Column column : columns )
+      if ( column.type() == String.class ) {
+        if ( !strings )
+          out.println( "    // Strings are encoded first, so one which does not fit fails before anything is written." );
+        strings = true;
+        out.println( "    final byte[] " + column.field.getName() + "Bytes = RecordCodec.encodeString( value." + column.getter() + "(), "
+                     + column.schema.length() + ", \"" + column.property + "\" );" );
+      }
+    for ( int i=0; i<columns.size(); i++ ) {
+      final Column column = columns.get( i );
+      out.println( "    // Field #" + (i + 1) + " (" + column.field.getName() + ")." );
+      if ( column.type() == String.class )
+        out.println( "    RecordCodec.putString( buffer, " + column.field.getName() + "Bytes, " + column.schema.length() + " );" );
+      else if ( column.type() == boolean.class )
+        out.println( "    buffer.put( value." + column.getter() + "() ? (byte)1 : (byte)0 );" );
+      else
+        out.println( "    buffer.put" + column.bufferType() + "( value." + column.getter() + "() );" );
+    }
+    out.println( "  }" );
+    out.println();
+    // Decode into value.
+    out.println( "  public void decode( final ByteBuffer buffer, final " + entity + " value ) {" );
+    for ( int i=0; i<columns.size(); i++ ) {
+      final Column column = columns.get( i );
+      out.println( "    // Field #" + (i + 1) + " (" + column.field.getName() + ")." );
+      out.println( "    value." + column.setter() + "( " + getField( column ) + " );" );
+    }
+    out.println( "  }" );
+    out.println();
+    // Flyweight decode into value, which holds its Strings encoded (if it can).
+    if ( lazy ) {
+      out.println( "  public void decodeFlyweight( final ByteBuffer buffer, final " + entity + " value ) {" );
+      out.println( "    if ( !( value instanceof RecordCodec.LazyStrings ) ) {" );
+      out.println( "      decode( buffer, value );" );
+      out.println( "      return;" );
+      out.println( "    }" );
+      out.println( "    final RecordCodec.LazyStrings strings = (RecordCodec.LazyStrings)value;" );
+      for ( int i=0; i<columns.size(); i++ ) {
+        final Column column = columns.get( i );
+        out.println( "    // Field #" + (i + 1) + " (" + column.field.getName() + ")." );
+        if ( column.type() == String.class )
+          out.println( "    RecordCodec.getString( buffer, " + column.schema.length() + ", " + constant( column.field.getName() ) + ", strings );" );
+        else
+          out.println( "    value." + column.setter() + "( " + getField( column ) + " );" );
+      }
+      out.println( "  }" );
+      out.println();
+    }
+    out.println( "  public " + entity + " decode( final ByteBuffer buffer ) {" );
+    out.println( "    final " + entity + " value = newValue();" );
+    out.println( "    decode( buffer, value );" );
+    out.println( "    return value;" );
+    out.println( "  }" );
+    out.println();
+    if ( lazy )
+      generateFlyweight( entity, columns, out );
+    out.println( "} // End of " + codec + " class." );
+  }
+
+  // Write the flyweight class, a subclass of the entity holding its Strings encoded until their getters.
+  private static void generateFlyweight( final String entity, final List<Column> columns, final PrintWriter out ) {
+    out.println( "  // Flyweight " + entity + " (see newFlyweight), holding its Strings encoded until read." );
+    out.println( "  private static final class Flyweight extends " + entity + " implements RecordCodec.LazyStrings {" );
+    for ( Column column : columns )
+      if ( column.type() == String.class ) {
+        final String name = column.field.getName();
+        out.println( "    private final byte[] " + name + "Bytes = new byte[" + column.schema.length() + "]; // Undecoded UTF-8 " + name + ", if " + name + "Pending." );
+        out.println( "    private int " + name + "Length = 0; // Length of undecoded " + name + "." );
+        out.println( "    private boolean " + name + "Pending = false; // " + column.property + " not yet decoded from " + name + "Bytes." );
+      }
+    for ( Column column : columns )
+      if ( column.type() == String.class ) {
+        final String name = column.field.getName();
+        out.println();
+        out.println( "    @Override" );
+        out.println( "    public String " + column.getter() + "() {" );
+        out.println( "      if ( " + name + "Pending ) {" );
+        out.println( "        super." + column.setter() + "( new String( " + name + "Bytes, 0, " + name + "Length, StandardCharsets.UTF_8 ) );" );
+        out.println( "        " + name + "Pending = false;" );
+        out.println( "      }" );
+        out.println( "      return super." + column.getter() + "();" );
+        out.println( "    }" );
+        out.println();
+        out.println( "    @Override" );
+        out.println( "    public void " + column.setter() + "( final String value ) {" );
+        out.println( "      " + name + "Pending = false;" );
+        out.println( "      super." + column.setter() + "( value );" );
+        out.println( "    }" );
+      }
+    out.println();
+    out.println( "    public void setEncodedString( final int field, final ByteBuffer buffer, final int length ) {" );
+    String branch = "      if";
+    for ( Column column : columns )
+      if ( column.type() == String.class ) {
+        final String name = column.field.getName();
+        out.println( branch + " ( field == " + constant( name ) + " ) {" );
+        out.println( "        buffer.get( " + name + "Bytes, 0, length );" );
+        out.println( "        " + name + "Length = length;" );
+        out.println( "        " + name + "Pending = true;" );
+        out.print( "      } " );
+        branch = "else if";
+      }
+    out.println( "else" );
+    out.println( "        throw new IllegalArgumentException( \"No String field #\" + field + \".\" );" );
+    out.println( "    }" );
+    out.println( "  } // End of Flyweight class." );
+    out.println();
+  }
+
+} // End of CodecGenerator class.
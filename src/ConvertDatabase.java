@@ -0,0 +1,203 @@
+/*************************************************************************
+ * Title: Database File Converter
+ * File: ConvertDatabase.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This program converts a Book database file from the original record
+ * layout (48 UTF-16 characters of space padded title, 113 bytes per
+ * record with a status byte, or 112 bytes without one), either with the
+ * version 1 file header or with no header at all, into the current
+ * (version 2) layout with UTF-8 titles (66 bytes per record).
+ * Tombstones are dropped, and title padding is removed. The original
+ * file is kept with a ".v1" suffix, and the index files are rebuilt
+ * when the converted database is first opened.
+ *
+ * Usage: java ConvertDatabase [--layout v1|113|112] [file]   (default Books.dat)
+ *
+ * Notes:
+ *  (1) Run offline, the database must not be open in another program.
+ *  (2) A file is taken to have a version 1 header only if every header
+ *      field is valid (magic, version, record size, record counts, free
+ *      slot chain and zero padding; the close stamp may hold any value),
+ *      since a headerless file may start with the magic number (as the
+ *      ISBN of its first record). A file which starts with the magic
+ *      number, but not a valid header, is rejected unless its layout is
+ *      given with --layout.
+ *  (3) A headerless file holds 113 byte records if its size is a multiple
+ *      of 113, or 112 byte (no status byte) records if a multiple of 112.
+ *      A size which is a multiple of both (12656 bytes) is ambiguous, and
+ *      the layout must be given with --layout.
+ *  (4) A title which does not fit the new title field (more than 48
+ *      bytes of UTF-8) is reported and its record is not converted.
+ *  (5) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Remove write-ahead log files. JME
+ *   10/18/2026: Validate the header, added --layout option. JME
+ *   10/18/2026: Accept the close stamp of a cleanly closed file. JME
+ *************************************************************************/
+import java.io.DataInputStream;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+public class ConvertDatabase {
+  /*********************************************************************
+   * Version 1 file layout.
+   *********************************************************************/
+  private static final int v1Magic = 0x4A454442;   // "JEDB".
+  private static final int v1HeaderSize = 64;      // Size of version 1 header in bytes.
+  private static final int v1RecordSize = 113;     // Status, ISBN, 48 chars, price, year.
+  private static final int v0RecordSize = 112;     // Original headerless layout, without status.
+  private static final int v1TitleLength = 48;     // Title characters (UTF-16).
+  private static final byte DELETED = 1;           // Tombstone status.
+
+  public static void main( String[] args ) {
+    String fileName = "Books.dat", forced = null;
+    for ( int i=0; i<args.length; i++ ) {
+      if ( args[i].equals( "--layout" ) && i + 1 < args.length )
+        forced = args[++i];
+      else
+        fileName = args[i];
+    }
+    if ( forced != null && !forced.equals( "v1" ) && !forced.equals( "113" ) && !forced.equals( "112" ) ) {
+      System.out.println( "Usage: java ConvertDatabase [--layout v1|113|112] [file]" );
+      System.exit( 1 );
+    }
+    final File file = new File( fileName ), original = new File( fileName + ".v1" );
+    final File converted = new File( fileName + ".v2" );
+
+    try {
+      final long[] layout = layout( file, forced ); // Header size, record slots, record size.
+      // Stream old records into a new database file.
+      long records = 0, skipped = 0;
+      converted.delete();
+      new File( indexFileName( converted.getPath() ) ).delete();
+      new File( logFileName( converted.getPath() ) ).delete();
+      try ( DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) );
+            EliJames_HW8.Database<Book, Integer> database = new EliJames_HW8().new Database<Book, Integer>( Book.class, converted.getPath() );
+            EliJames_HW8.Database<Book, Integer>.BulkLoader loader = database.new BulkLoader( 4096, EliJames_HW8.Durability.END ) ) {
+        in.skipBytes( (int)layout[0] );
+        for ( long slot=0; slot<layout[1]; slot++ ) {
+          final byte status = ( layout[2] == v1RecordSize ? in.readByte() : 0 );
+          final int isbn = in.readInt();
+          final StringBuilder title = new StringBuilder( v1TitleLength );
+          for ( int i=0; i<v1TitleLength; i++ )
+            title.append( in.readChar() );
+          final double price = in.readDouble();
+          final int year = in.readInt();
+          if ( status == DELETED )
+            continue;
+          try {
+            loader.add( new Book( isbn, trimTrailing( title ), year, price ) );
+            records++;
+          } catch ( IllegalArgumentException e ) {
+            System.out.println( "Skipped ISBN " + isbn + ", " + e.getMessage() + "." );
+            skipped++;
+          }
+        }
+      }
+      new File( indexFileName( converted.getPath() ) ).delete();
+      new File( logFileName( converted.getPath() ) ).delete(); // Empty after close.
+
+      // Keep the original, and put the converted file in its place (its stale index and log go too).
+      original.delete();
+      if ( !file.renameTo( original ) || !converted.renameTo( file ) )
+        throw new IOException( "Unable to replace " + fileName );
+      new File( indexFileName( fileName ) ).delete();
+      new File( logFileName( fileName ) ).delete();
+      System.out.printf( "Converted %d records (%d skipped), %d -> %d bytes. Original kept as %s.%n",
+                         records, skipped, original.length(), file.length(), original.getName() );
+    } catch ( IOException e ) {
+      System.out.println( "Unable to convert " + fileName + ", " + e.getMessage() + "." );
+      System.exit( 1 );
+    }
+  }
+
+  // Header size, number of record slots and record size of a version 1 (or headerless) file, as given
+  // (forced) or as found. Rejects any other file, and a file whose layout cannot be told.
+  private static long[] layout( final File file, final String forced ) throws IOException {
+    try ( RandomAccessFile raf = new RandomAccessFile( file, "r" ) ) {
+      final long length = raf.length();
+      final long[] headered = v1Layout( raf );
+      if ( forced != null ) {
+        if ( forced.equals( "v1" ) ) {
+          if ( headered == null )
+            throw new IOException( "no valid version 1 header" );
+          return headered;
+        }
+        final int recordSize = ( forced.equals( "113" ) ? v1RecordSize : v0RecordSize );
+        if ( length % recordSize != 0 )
+          throw new IOException( "size is not a multiple of " + recordSize + " bytes" );
+        return new long[] { 0, length/recordSize, recordSize };
+      }
+      if ( headered != null )
+        return headered;
+      raf.seek( 0 );
+      if ( length >= 4 && raf.readInt() == v1Magic )
+        throw new IOException( "not a version 1 database file (no valid header), use --layout 113 or --layout 112 for a headerless file" );
+      final boolean v1 = ( length % v1RecordSize == 0 ), v0 = ( length % v0RecordSize == 0 );
+      if ( length > 0 && v1 && v0 )
+        throw new IOException( "layout is ambiguous (" + length + " bytes is a multiple of both record sizes), use --layout 113 or --layout 112" );
+      if ( v1 )
+        return new long[] { 0, length/v1RecordSize, v1RecordSize };
+      if ( v0 )
+        return new long[] { 0, length/v0RecordSize, v0RecordSize };
+      throw new IOException( "not a database file" );
+    }
+  }
+
+  // Layout of a file with a valid version 1 header, otherwise null.
+  private static long[] v1Layout( final RandomAccessFile raf ) throws IOException {
+    final long length = raf.length();
+    if ( length < v1HeaderSize )
+      return null;
+    final ByteBuffer header = ByteBuffer.allocate( v1HeaderSize );
+    raf.seek( 0 );
+    raf.readFully( header.array() );
+    if ( header.getInt() != v1Magic || header.getInt() != 1 || header.getInt() != v1RecordSize || header.getInt() != 0 )
+      return null; // Magic, version, record size, reserved.
+    final long records = header.getLong(), deleted = header.getLong(), freeHead = header.getLong();
+    if ( records < 0 || deleted < 0 || deleted > records || freeHead < -1 || freeHead >= records )
+      return null;
+    header.getLong(); // Close stamp (set by a clean close, any value).
+    while ( header.hasRemaining() )
+      if ( header.get() != 0 )
+        return null; // Padding.
+    if ( ( length - v1HeaderSize ) % v1RecordSize != 0 || length < v1HeaderSize + records*v1RecordSize )
+      return null; // Slots past the record count are unused extent.
+    return new long[] { v1HeaderSize, records, v1RecordSize };
+  }
+
+  // Title without its space padding.
+  private static String trimTrailing( final StringBuilder title ) {
+    int length = title.length();
+    while ( length > 0 && title.charAt( length - 1 ) == ' ' )
+      length--;
+    return title.substring( 0, length );
+  }
+
+  // Index file next to a db file (e.g. Books.dat -> Books.idx).
+  private static String indexFileName( final String file ) {
+    return baseName( file ) + ".idx";
+  }
+
+  // Write-ahead log file next to a db file (e.g. Books.dat -> Books.wal).
+  private static String logFileName( final String file ) {
+    return baseName( file ) + ".wal";
+  }
+
+  // Db file name without extension.
+  private static String baseName( final String file ) {
+    final int dot = file.lastIndexOf( '.' );
+    return ( dot > file.lastIndexOf( File.separatorChar ) ? file.substring( 0, dot ) : file );
+  }
+
+} // End of ConvertDatabase class.
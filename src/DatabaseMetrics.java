@@ -0,0 +1,302 @@
+/*************************************************************************
+ * Title: Database Metrics
+ * File: DatabaseMetrics.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This class collects operation level metrics for a database (see
+ * Database.setMetrics): a latency histogram for each operation, counters
+ * of db file I/O (bytes read and written, positional reads and writes),
+ * key lookups, records read per lookup, records scanned, cache hits and
+ * misses, log syncs, and failures. The metrics may be read directly, exposed as a
+ * JMX MXBean (see register), or traced by a listener, which is told of
+ * every operation (and its latency) and every failure as it happens.
+ *
+ * Histograms are log-linear (as HdrHistogram): each power of two range
+ * of latencies is split into 32 equal sub-buckets, so a recorded value
+ * is kept to within about 3%, over the full range of a long, in a fixed
+ * table of counters.
+ *
+ * Notes:
+ *  (1) Metrics are safe for concurrent use, without locks (counters are
+ *      LongAdders, histogram buckets atomic longs). Reads taken while
+ *      operations are recorded are not an atomic snapshot.
+ *  (2) A listener is called on the thread of the operation, once its
+ *      locks are released (except for DECODE and ENCODE, which are part
+ *      of other operations), so it must be quick and must not call back
+ *      into the database.
+ *  (3) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Added log sync counter. JME
+ *************************************************************************/
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class DatabaseMetrics implements DatabaseMetricsMXBean {
+  // Timed operations.
+  public static enum Operation {
+    ADD,          // addRecord.
+    BULK_ADD,     // BulkLoader batch (addRecords).
+    GET,          // getRecord.
+    UPDATE,       // updateRecord.
+    DELETE,       // deleteRecord.
+    RANGE_QUERY,  // rangeQuery, from creation until exhausted.
+    SCAN,         // Scan cursor (or each part of a parallel scan), from creation until exhausted.
+    COMPACT,      // compact.
+    CHECKPOINT,   // checkpoint.
+    CREATE_INDEX, // createIndex.
+    DECODE,       // ReadWrite.read of a record (slot reads).
+    ENCODE        // ReadWrite.write of a record (slot writes).
+  }
+
+  // Counted events.
+  public static enum Counter {
+    BYTES_READ,      // Bytes read from the db file.
+    BYTES_WRITTEN,   // Bytes written to the db file.
+    SEEKS,           // Positional reads and writes of the db file (not counting mapped I/O).
+    LOOKUPS,         // Key lookups (getRecord).
+    LOOKUP_RECORDS,  // Records read by key lookups.
+    RECORDS_SCANNED, // Slots read by scans and range queries.
+    CACHE_HITS,      // Key lookups found in the record cache.
+    CACHE_MISSES,    // Key lookups not found in the record cache.
+    LOG_SYNCS,       // Write-ahead log syncs by commits (each shared by the commits of its group).
+    FAILURES         // Operations which failed (with a message).
+  }
+
+  // Traces operations as they complete.
+  public static interface Listener {
+    public void operation( Operation operation, long nanos );
+    public default void failure( Operation operation, Exception e ) { }
+  }
+
+  /*********************************************************************
+   * This class is a log-linear latency histogram.
+   *********************************************************************/
+  public static class Histogram {
+    private static final int SUB_BITS = 5;                     // Sub-buckets per power of two (log2).
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) << SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray( BUCKETS );
+    private final LongAdder count = new LongAdder();           // Values recorded.
+    private final LongAdder total = new LongAdder();           // Sum of values recorded.
+    private final AtomicLong max = new AtomicLong();           // Largest value recorded.
+
+    // Record a value (negative values count as 0).
+    public void record( long value ) {
+      if ( value < 0 )
+        value = 0;
+      counts.incrementAndGet( bucket( value ) );
+      count.increment();
+      total.add( value );
+      if ( value > max.get() )
+        max.accumulateAndGet( value, Math::max );
+    }
+
+    public long getCount() { return count.sum(); }
+    public long getMax() { return max.get(); }
+
+    public double getMean() {
+      final long n = count.sum();
+      return n == 0 ? 0.0 : (double)total.sum() / n;
+    }
+
+    // Value at or below which percentile (0 to 100) percent of recorded values fall (the
+    // highest value of its bucket, but never above the largest value recorded).
+    public long getPercentile( final double percentile ) {
+      final long n = count.sum();
+      if ( n == 0 )
+        return 0;
+      final long rank = Math.max( 1, (long)Math.ceil( percentile/100.0*n ) );
+      long seen = 0;
+      for ( int i=0; i<BUCKETS; i++ ) {
+        seen += counts.get( i );
+        if ( seen >= rank )
+          return Math.min( highest( i ), max.get() );
+      }
+      return max.get();
+    }
+
+    public void reset() {
+      for ( int i=0; i<BUCKETS; i++ )
+        counts.set( i, 0 );
+      count.reset();
+      total.reset();
+      max.set( 0 );
+    }
+
+    @Override
+    public String toString() {
+      return String.format( "count %d, mean %.0f, p50 %d, p99 %d, p99.9 %d, max %d ns",
+                            getCount(), getMean(), getPercentile( 50 ), getPercentile( 99 ), getPercentile( 99.9 ), getMax() );
+    }
+
+    // Bucket of value: values below SUB_COUNT have their own bucket, above that each
+    // power of two range is split into SUB_COUNT buckets.
+    private static int bucket( final long value ) {
+      if ( value < SUB_COUNT )
+        return (int)value;
+      final int magnitude = 63 - Long.numberOfLeadingZeros( value );
+      return ( (magnitude - SUB_BITS + 1) << SUB_BITS ) + (int)( (value >>> (magnitude - SUB_BITS)) & (SUB_COUNT - 1) );
+    }
+
+    // Highest value of bucket (one below the lowest value of the next).
+    private static long highest( final int bucket ) {
+      final int next = bucket + 1;
+      if ( next < SUB_COUNT )
+        return bucket;
+      if ( next >= BUCKETS )
+        return Long.MAX_VALUE;
+      return ( (long)( SUB_COUNT + (next & (SUB_COUNT - 1)) ) << ( (next >>> SUB_BITS) - 1 ) ) - 1;
+    }
+  } // End of Histogram class.
+
+  /*********************************************************************
+   * Instance fields (all private)
+   *********************************************************************/
+  private final Histogram[] latencies = new Histogram[Operation.values().length];
+  private final LongAdder[] counters = new LongAdder[Counter.values().length];
+  private volatile Listener listener = null;       // Operation tracer (null if none).
+  private ObjectName objectName = null;            // JMX name (null if not registered).
+
+  public DatabaseMetrics() {
+    for ( int i=0; i<latencies.length; i++ )
+      latencies[i] = new Histogram();
+    for ( int i=0; i<counters.length; i++ )
+      counters[i] = new LongAdder();
+  }
+
+  /*********************************************************************
+   * Recording (called by the database).
+   *********************************************************************/
+  // Record an operation begun at start (a System.nanoTime value).
+  public void record( final Operation operation, final long start ) {
+    final long nanos = System.nanoTime() - start;
+    latencies[operation.ordinal()].record( nanos );
+    final Listener listener = this.listener;
+    if ( listener != null )
+      listener.operation( operation, nanos );
+  }
+
+  // Record a failed operation.
+  public void failure( final Operation operation, final Exception e ) {
+    counters[Counter.FAILURES.ordinal()].increment();
+    final Listener listener = this.listener;
+    if ( listener != null )
+      listener.failure( operation, e );
+  }
+
+  public void add( final Counter counter, final long n ) { counters[counter.ordinal()].add( n ); }
+  public void increment( final Counter counter ) { counters[counter.ordinal()].increment(); }
+
+  // Trace operations with listener (null removes it).
+  public void setListener( final Listener listener ) { this.listener = listener; }
+
+  /*********************************************************************
+   * Reading.
+   *********************************************************************/
+  public Histogram getLatency( final Operation operation ) { return latencies[operation.ordinal()]; }
+  public long get( final Counter counter ) { return counters[counter.ordinal()].sum(); }
+
+  public long getBytesRead() { return get( Counter.BYTES_READ ); }
+  public long getBytesWritten() { return get( Counter.BYTES_WRITTEN ); }
+  public long getSeeks() { return get( Counter.SEEKS ); }
+  public long getLookups() { return get( Counter.LOOKUPS ); }
+  public long getRecordsScanned() { return get( Counter.RECORDS_SCANNED ); }
+  public long getCacheHits() { return get( Counter.CACHE_HITS ); }
+  public long getCacheMisses() { return get( Counter.CACHE_MISSES ); }
+  public long getLogSyncs() { return get( Counter.LOG_SYNCS ); }
+  public long getFailures() { return get( Counter.FAILURES ); }
+
+  public double getRecordsReadPerLookup() {
+    final long n = getLookups();
+    return n == 0 ? 0.0 : (double)get( Counter.LOOKUP_RECORDS ) / n;
+  }
+
+  public Map<String, Long> getOperationCounts() {
+    final Map<String, Long> map = new TreeMap<String, Long>();
+    for ( Operation operation : Operation.values() )
+      map.put( operation.name(), getLatency( operation ).getCount() );
+    return map;
+  }
+
+  public Map<String, Double> getMeanNanos() {
+    final Map<String, Double> map = new TreeMap<String, Double>();
+    for ( Operation operation : Operation.values() )
+      map.put( operation.name(), getLatency( operation ).getMean() );
+    return map;
+  }
+
+  public Map<String, Long> getMedianNanos() { return percentiles( 50 ); }
+  public Map<String, Long> getP99Nanos() { return percentiles( 99 ); }
+
+  public Map<String, Long> getMaxNanos() {
+    final Map<String, Long> map = new TreeMap<String, Long>();
+    for ( Operation operation : Operation.values() )
+      map.put( operation.name(), getLatency( operation ).getMax() );
+    return map;
+  }
+
+  // Clear all histograms and counters.
+  public void reset() {
+    for ( Histogram latency : latencies )
+      latency.reset();
+    for ( LongAdder counter : counters )
+      counter.reset();
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    for ( Operation operation : Operation.values() )
+      if ( getLatency( operation ).getCount() > 0 )
+        sb.append( String.format( "%-12s %s%n", operation, getLatency( operation ) ) );
+    sb.append( String.format( "I/O: %d bytes read, %d bytes written, %d seeks; %d lookups (%.2f records read each), %d records scanned; cache %d hits, %d misses; %d log syncs; %d failures",
+                              getBytesRead(), getBytesWritten(), getSeeks(), getLookups(), getRecordsReadPerLookup(),
+                              getRecordsScanned(), getCacheHits(), getCacheMisses(), getLogSyncs(), getFailures() ) );
+    return sb.toString();
+  }
+
+  // Latency percentile of each operation.
+  private Map<String, Long> percentiles( final double percentile ) {
+    final Map<String, Long> map = new TreeMap<String, Long>();
+    for ( Operation operation : Operation.values() )
+      map.put( operation.name(), getLatency( operation ).getPercentile( percentile ) );
+    return map;
+  }
+
+  /*********************************************************************
+   * JMX.
+   *********************************************************************/
+  // Register these metrics with the platform MBean server, as EliJames_HW8:type=Database,name=<name>.
+  public synchronized ObjectName register( final String name ) throws JMException {
+    unregister();
+    final ObjectName objectName = new ObjectName( "EliJames_HW8:type=Database,name=" + ObjectName.quote( name ) );
+    ManagementFactory.getPlatformMBeanServer().registerMBean( this, objectName );
+    this.objectName = objectName;
+    return objectName;
+  }
+
+  // Remove these metrics from the platform MBean server, if registered.
+  public synchronized void unregister() {
+    if ( objectName != null ) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean( objectName );
+      } catch ( JMException e ) {
+        ; // Eat exception, nothing further to be done here.
+      }
+      objectName = null;
+    }
+  }
+
+} // End of DatabaseMetrics class.
@@ -0,0 +1,39 @@
+/*************************************************************************
+ * Title: Database Metrics MXBean
+ * File: DatabaseMetricsMXBean.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This interface defines the database metrics (see DatabaseMetrics) as
+ * exposed over JMX. Latencies are in nanoseconds, keyed by operation
+ * name.
+ *
+ * Notes:
+ *  (1) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Added log sync counter. JME
+ *************************************************************************/
+import java.util.Map;
+
+public interface DatabaseMetricsMXBean {
+  public long getBytesRead();                      // Bytes read from the db file.
+  public long getBytesWritten();                   // Bytes written to the db file.
+  public long getSeeks();                          // Positional reads and writes of the db file.
+  public long getLookups();                        // Key lookups.
+  public double getRecordsReadPerLookup();         // Average records read by a key lookup.
+  public long getRecordsScanned();                 // Slots read by scans and range queries.
+  public long getCacheHits();                      // Key lookups found in the record cache.
+  public long getCacheMisses();                    // Key lookups not found in the record cache.
+  public long getLogSyncs();                       // Write-ahead log syncs by commits.
+  public long getFailures();                       // Failed operations.
+  public Map<String, Long> getOperationCounts();   // Operations completed.
+  public Map<String, Double> getMeanNanos();       // Mean latency.
+  public Map<String, Long> getMedianNanos();       // Median latency.
+  public Map<String, Long> getP99Nanos();          // 99th percentile latency.
+  public Map<String, Long> getMaxNanos();          // Largest latency.
+  public void reset();                             // Clear all metrics.
+}
@@ -0,0 +1,41 @@
+/*************************************************************************
+ * Title: Database Field Annotation
+ * File: DbField.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This annotation marks an entity field as stored in the database, and
+ * gives its place in the record schema: its order within the record,
+ * the width of a String field (maximum UTF-8 bytes), whether it is the
+ * key field, and the property name of its accessors (getX/setX, or isX
+ * for a boolean). CodecGenerator reads the schema of an entity class to
+ * generate its record codec (see RecordCodec).
+ *
+ * For example:
+ *   @DbField( order = 1, key = true, property = "ISBN" )
+ *   private int isbn;
+ *   @DbField( order = 2, length = 48 )
+ *   private String title;
+ *
+ * Notes:
+ *  (1) The key field must be an int.
+ *  (2) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *************************************************************************/
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention( RetentionPolicy.RUNTIME )
+@Target( ElementType.FIELD )
+public @interface DbField {
+  public int order();                              // Position of field within record (ascending).
+  public int length() default 0;                   // Width of a String field (UTF-8 bytes).
+  public boolean key() default false;              // Field is the record key.
+  public String property() default "";             // Accessor property name (default, capitalized field name).
+}
@@ -21,142 +21,1252 @@
  *   09/12/2016: Initial release. JME
  *   09/14/2016: Modified with Generic database methods. JME
  *   10/02/2016: Added interfaces. JME
+ *   10/18/2026: Added persistent hash index on key field. JME
+ *   10/18/2026: Replaced delete file rewrite with tombstones/compaction. JME
+ *   10/18/2026: Added memory-mapped record I/O. JME
+ *   10/18/2026: Added db file header, removed maximum record limit. JME
+ *   10/18/2026: Added batched bulk-load API. JME
+ *   10/18/2026: Made Database thread-safe (positional I/O, striped locks). JME
+ *   10/18/2026: Added optional bounded record cache (LRU/CLOCK). JME
+ *   10/18/2026: Added B+tree secondary indexes and range queries. JME
+ *   10/18/2026: Compact record format v2 (UTF-8 titles, no truncation). JME
+ *   10/18/2026: Added write-ahead log with crash recovery. JME
+ *   10/18/2026: Added streaming scan API (flyweight cursor, pushdown). JME
+ *   10/18/2026: Added parallel (splittable) scans and aggregates. JME
+ *   10/18/2026: In-memory primitive key index (replaces on-disk hash index). JME
+ *   10/18/2026: Added operation metrics (latency histograms, I/O counters, JMX). JME
+ *   10/18/2026: Record fields encoded by generated codec (DbField schema). JME
+ *   10/18/2026: Added asynchronous API (pipelined lookups, virtual threads). JME
+ *   10/18/2026: Added snapshot (MVCC) scans with copy-on-write slot versions. JME
+ *   10/18/2026: Virtual thread executor falls back to platform threads. JME
+ *   10/18/2026: Record holds any base class, codec of class given to Database. JME
  *************************************************************************/
 import java.io.File;
 import java.io.RandomAccessFile;
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.List ;
 import java.util.ArrayList ;
-import java.util.Date;
-import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.DoubleSummaryStatistics;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class EliJames_HW8 {
   // Database filenames.
   private static final String filename = "Books", extension = ".dat";
   private static final String databaseFileName = filename + extension;
-  private static final String tempDatabaseFileName = "temp.dat";
-  // Size of database record in bytes. Set/checked inside read/write methods.
-  private long recordSize = 0;
+  private static final String indexExtension = ".idx";
+  private static final String walExtension = ".wal";
+  // Database file header (magic, version, record size, record counts, free slot chain and close stamp).
+  private static final int dbMagic = 0x4A454442;   // "JEDB".
+  private static final int dbVersion = 2;          // Database file format version (2: UTF-8 titles).
+  private static final int headerSize = 64;        // Size of header (offset of first record) in bytes.
+  private static final long extentRecords = 1024;  // Minimum number of slots allocated when file grows.
+  private static final int batchRecords = 4096;    // Default number of records per bulk-load batch.
+  private static final int lockStripes = 64;       // Number of key lock stripes (power of 2).
+  private static final int scanBlockRecords = 256; // Number of slots read at once by a scan.
+  private static final int asyncBatchRecords = 1024; // Maximum number of lookups served together (power of 2).
+  private static final int asyncGapRecords = 64;   // Largest gap (in slots) between lookups coalesced into one read.
+  private static final int asyncChangeThreads = 64; // Threads of the default asynchronous change executor.
+  private static final long checkpointBytes = 16*1024*1024; // Log size which triggers a checkpoint.
   
   // Database Record interface definitions.
   public static interface dbRecord<T, K> {
     // Constants.
-    final static int STRING_LENGTH = 48;   // Required length of Strings.
-    final long MAX_RECORDS = 1000;         // Maximum number of records in database.
+    final static byte ACTIVE = 0;          // Record status (field #0), record in use.
+    final static byte DELETED = 1;         // Record status (field #0), slot is a tombstone.
 
     // Define required methods.
+    public T get();                        // Returns db object.
     public K getKey();                     // Returns db key value.
+    public boolean isDeleted();            // Returns true if record is a tombstone.
     
-    //Must also include the following 2 constructors:
-    //public Record() { super(); }         // Simple naked constructor.    
-    //public Record( T t ) { super( t ); } // Passes db object onto base class.
+    //Must also include the following constructor:
+    //public Record( RecordCodec<T> codec, T t ) // Holds db object, keyed by its codec.
   }
   
   /*********************************************************************
-   * This class defines a Database Record based upon the inherited class.
+   * This class defines a Database Record, holding an object of the
+   * database base class (any class with a generated record codec, see
+   * RecordCodec) and its record status.
    *********************************************************************/
-  public static class Record<T, K> extends Book implements dbRecord<T, K> { 
+  public static class Record<T, K> implements dbRecord<T, K> { 
+    private final RecordCodec<T> codec; // Record codec of the base class (its key field).
+    private final T value;              // Db object.
+    private boolean deleted = false;    // Record status (tombstone flag).
+
     /*********************************************************************
      * Constructors.
      *********************************************************************/
-    // Unique constructor passes database object onto base class.
-    public Record( T t ) { super( t ); }
-    // Naked constructor.    
-    public Record() { super(); }
+    // Unique constructor holds database object (not a copy).
+    public Record( final RecordCodec<T> codec, final T t ) {
+      this.codec = codec;
+      this.value = t;
+    }
 
     /*********************************************************************
      * Class getters. Note, getKey method is customized for the particular 
      * database base class key value.
      *********************************************************************/
-    // Key field and type is specific to the database.
+    public T get() { return value; }                   // Return db object.
+    // Key field is designated by the base class schema (see DbField).
     @SuppressWarnings( "unchecked" )                   // Suppressing cast to 'K' below.
-    public K getKey() { return (K) getISBN(); }        // Return key field value (auto-boxed).
+    public K getKey() { return (K) Integer.valueOf( codec.key( value ) ); } // Return key field value (boxed).
+    public int getIntKey() { return codec.key( value ); } // Return key field value (unboxed).
+    public boolean isDeleted() { return deleted; }     // Return record status.
+    public void setDeleted( boolean deleted ) { this.deleted = deleted; }
+
+    @Override
+    public String toString() { return value.toString(); }
   } // End of Record class.
 
   /*********************************************************************
    * This interface defines the 2 required specific read/write methods 
    * which will be particular to the database base class. These 2 
    * methods need to be customized and must read and write the record 
-   * fields in the same order. 
+   * fields in the same order. The record status byte (field #0) must
+   * always be the first byte of the record.
    *********************************************************************/
   public static interface dbReadWrite<T, K> {
     // Read all db records to random access file, returns a Record<T, K>
     public Record<T, K> read( RandomAccessFile file ) throws IOException, EOFException, Exception;
     // Write all db records from random access file.
     public void write( RandomAccessFile file, Record<T, K> record ) throws IOException, EOFException, Exception; 
+    // Decode db record from (memory-mapped) buffer, returns a Record<T, K>
+    public Record<T, K> read( ByteBuffer buffer ) throws Exception;
+    // Encode db record into (memory-mapped) buffer.
+    public void write( ByteBuffer buffer, Record<T, K> record ) throws Exception;
   }
   
   /*********************************************************************
-   * This class defines the required specific read/write methods which
-   * are particular to this database of the base Book class. These 
-   * methods need to be customized for each base class. These methods
-   * should read and write the record fields in the same order. 
+   * This class defines the required specific read/write methods. A
+   * record is its status byte followed by the stored fields of the base
+   * class, encoded by its generated record codec (see RecordCodec and
+   * CodecGenerator), found from the base class given to the constructor,
+   * so nothing here is particular to the base class.
+   *
+   * Record layout (format version 2, 66 bytes for Book):
+   *   status (byte), then the Book fields (see BookCodec): ISBN (int),
+   *   title length (byte), title (UTF-8, zero padded to 48 bytes), price
+   *   (double), year (int).
+   * A String longer than its field is rejected (with an
+   * IllegalArgumentException, before anything is written) rather than
+   * truncated.
    *********************************************************************/
   public class ReadWrite<T, K> implements dbReadWrite<T, K> {
+    protected final RecordCodec<T> codec;  // Generated record codec of the base class (its stored fields and key).
+    protected final long recordSize;       // Size of db record in bytes (status byte and fields). Checked inside read/write methods.
+
+    // Read/write records of base class type.
+    public ReadWrite( final Class<T> type ) {
+      this.codec = RecordCodec.of( type );
+      this.recordSize = 1 + codec.size();
+    }
+
     // Read db record from RAF file. Note: caller must perform seek to correct location.
     public Record<T, K> read( final RandomAccessFile file ) throws IOException, EOFException, Exception { 
-      Record<T, K> record = new Record<T, K>();
-
-      long fp = file.getFilePointer(); // Used to assert correct record size.
-      //Field #1.
-      record.setISBN( file.readInt() );
-      // Field #2.
-      StringBuffer buffer = new StringBuffer();
-      for ( int i=0; i<Record.STRING_LENGTH; i++ )
-        buffer.append( file.readChar() );
-      record.setTitle( buffer.toString() );
-      // Field #3.
-      record.setPrice( file.readDouble() );
-      // Field #4.
-      record.setYearPublished( file.readInt() );
-      // Set or validate record size.
-      if ( recordSize == 0 ) 
-        recordSize = ( file.getFilePointer() - fp );
-      else {
-        // Assert proper record size read.
-        assert ( (file.getFilePointer() - fp) == recordSize ) : "Record Size Violation.";
-      }
-      return record;
+      final byte[] bytes = new byte[(int)recordSize];
+      file.readFully( bytes );
+      return read( ByteBuffer.wrap( bytes ) );
     }
 
     // Write db record to RAF file. Note: caller must perform seek to correct location.
     public void write( final RandomAccessFile file, final Record<T, K> record ) throws IOException, EOFException, Exception { 
-      StringBuffer buffer = new StringBuffer( record.getTitle() );
-      long fp = file.getFilePointer(); // Used to assert correct record size.
-
-      // Field #1.
-      while ( buffer.length()< Record.STRING_LENGTH )
-        buffer.append( ' ' );
-      buffer.setLength( Record.STRING_LENGTH );
-      file.writeInt( record.getISBN() );
-      // Field #2.
-      file.writeChars( buffer.toString() );
-      // Field #3.
-      file.writeDouble( record.getPrice() );
-      // Field #4.
-      file.writeInt( record.getYearPublished() );
-      // Set or validate record size.
-      if ( recordSize == 0 ) 
-          recordSize = ( file.getFilePointer() - fp );
-        else {
-          // Assert proper record size read.
-          assert ( (file.getFilePointer() - fp) == recordSize ) : "Record Size Violation.";
-        }
+      final ByteBuffer buffer = ByteBuffer.allocate( (int)recordSize );
+      write( buffer, record );
+      file.write( buffer.array(), 0, buffer.position() );
+    }
+
+    // Decode db record in place from buffer. Note: caller must position buffer at correct location.
+    public Record<T, K> read( final ByteBuffer buffer ) throws Exception {
+      int p = buffer.position(); // Used to assert correct record size.
+      // Field #0 (status).
+      final boolean deleted = ( buffer.get() == Record.DELETED );
+      // Fields #1 onward.
+      final Record<T, K> record = new Record<T, K>( codec, codec.decode( buffer ) );
+      record.setDeleted( deleted );
+      // Assert proper record size read.
+      assert ( (buffer.position() - p) == recordSize ) : "Record Size Violation.";
+      return record;
+    }
+
+    // Decode db record from buffer into an existing (flyweight) record, without allocating; its
+    // String fields are kept encoded until asked for if it holds a flyweight object (see
+    // RecordCodec.newFlyweight). Note: caller must position buffer at correct location.
+    public Record<T, K> read( final ByteBuffer buffer, final Record<T, K> record ) {
+      final int p = buffer.position();
+      // Field #0 (status).
+      record.setDeleted( buffer.get() == Record.DELETED );
+      // Fields #1 onward.
+      codec.decodeFlyweight( buffer, record.get() );
+      assert ( (buffer.position() - p) == recordSize ) : "Record Size Violation.";
+      return record;
+    }
+
+    // Encode db record in place into buffer. Note: caller must position buffer at correct location.
+    // An unencodable record throws with the buffer unchanged.
+    public void write( final ByteBuffer buffer, final Record<T, K> record ) throws Exception {
+      int p = buffer.position(); // Used to assert correct record size.
+
+      // Field #0 (status).
+      buffer.put( record.isDeleted() ? Record.DELETED : Record.ACTIVE );
+      // Fields #1 onward.
+      try {
+        codec.encode( buffer, record.get() );
+      } catch ( IllegalArgumentException e ) {
+        buffer.position( p );
+        throw e;
+      }
+      // Assert proper record size written.
+      assert ( (buffer.position() - p) == recordSize ) : "Record Size Violation.";
     }
   }
   
+  // Durability of a bulk-load: never sync the log (the records are synced once, at the end, before
+  // their count is logged), sync after every batch, or sync once at the end.
+  public static enum Durability { NONE, BATCH, END }
+
+  // Executor running each task on a new virtual thread (JDK 21 or later), for Database.setAsyncExecutor.
+  // Found reflectively, so the program still builds and runs on JDK 8. Before JDK 21 the tasks instead
+  // run on a pool of platform (daemon) threads, created as needed and reused.
+  public static ExecutorService newVirtualThreadExecutor() {
+    try {
+      return (ExecutorService)Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" ).invoke( null );
+    } catch ( ReflectiveOperationException e ) {
+      return Executors.newCachedThreadPool( r -> {
+        final Thread thread = new Thread( r, "Async changes" );
+        thread.setDaemon( true );
+        return thread;
+      } );
+    }
+  }
+
   /*********************************************************************
    * This class defines the required generic Database functions.
    * Nothing in this class needs to be modified.
+   *
+   * The database is thread-safe. Record I/O is positional (there is no
+   * shared file pointer), so lookups run in parallel with each other and
+   * with writers. Locks are always taken in the following order:
+   *   appendLock    - single writer on the insert (append) path, held
+   *                   by an add only while it allocates and logs its
+   *                   slot (and by a bulk loader while it is open).
+   *   structureLock - shared by every operation, held exclusively by
+   *                   compaction and close (which move or drop slots).
+   *   stripes       - read/write locks striped by key hash, so updates
+   *                   and deletes of a key serialize with its readers
+   *                   while other keys proceed.
+   *   stateLock     - record counts, free slot chain and header.
+   *   versionLock   - versions of open snapshots.
+   *
+   * Every change is first appended to a write-ahead log (see
+   * WriteAheadLog) as a redo record holding the new image of each slot
+   * it changes. An add or update only writes its slot once the log is
+   * synced, so a crash can not leave a torn record; opening the database
+   * replays the log. Commits are grouped: threads committing together
+   * share a single log sync. A checkpoint (once the log passes
+   * checkpointBytes, and on close) syncs the db file and its header, then
+   * empties the log.
+   *
+   * Secondary indexes (see createIndex) are ordered B+trees over numeric
+   * fields, kept up to date by every change and used by rangeQuery.
+   *
+   * An optional record cache (see setCache) is read through by getRecord,
+   * written through by updateRecord and invalidated by deleteRecord, all
+   * under the key's stripe lock, so a lookup never caches a stale record.
+   *
+   * Optional metrics (see setMetrics) time every operation and count db
+   * file I/O. Without them, each operation only tests one field.
+   *
+   * Snapshots (see snapshot) give scans a consistent view of the db as
+   * of a version, without locks held against writers, by keeping old
+   * slot images (copy on write) while they are open.
+   *
+   * Every operation also has an asynchronous form (see getRecordAsync),
+   * whose lookups are batched into sorted, coalesced reads. All locks
+   * are java.util.concurrent locks, never monitors, so a virtual thread
+   * blocked on file I/O while holding one does not pin its carrier.
    *********************************************************************/
   public class Database<T, K> extends ReadWrite<T, K> implements AutoCloseable {
     private RandomAccessFile dbFile = null ; // Database file.
-    private long numRecords = 0;             // Number of database records.
+    private FileChannel channel = null;      // Database file channel (positional I/O).
+    private MappedFile mappedFile = null;    // Memory-mapped view of db file (mapped I/O only).
+    private IntLongMap index = null;         // Key (ISBN) to record slot index, held in memory.
+    private boolean indexLoaded = false;     // Index loaded from its snapshot (unchanged since saved).
+    private volatile long numRecords = 0;    // Number of database record slots (including tombstones).
+    private long appendEnd = 0;              // Next slot at end of file (past numRecords while appends are in flight).
+    private final TreeSet<Long> appendsDone = new TreeSet<Long>(); // Appended slots finished ahead of an earlier one.
+    private final IntLongMap pendingKeys = new IntLongMap( false ); // Keys of adds in flight (logged, not yet indexed).
+    private long allocated = 0;              // Number of slots allocated in the db file.
+    private volatile long numDeleted = 0;    // Number of tombstone slots.
+    private long freeHead = -1;              // First free (tombstone) slot, or -1 if none.
+    private volatile double compactRatio = 0.5; // Tombstone ratio which triggers compaction.
+    private volatile RecordCache<K, Record<T, K>> cache = null; // Record cache (null if none).
+    private String baseName = null;          // Db file name without extension (index files sit next to it).
+    private volatile List<SecondaryIndex> secondaries = new ArrayList<SecondaryIndex>(); // Declared secondary indexes (replaced, never changed).
+    private long closeStamp = 0;             // Stamp of last clean close, 0 once changed (secondary index validity).
+    private volatile boolean changed = false; // Database changed since opened.
+    private volatile long generation = 0;    // Incremented when records move (compaction).
+    private WriteAheadLog wal = null;        // Redo log of changes since the last checkpoint.
+    private volatile boolean syncCommits = true; // Sync the log before a change returns.
+    private volatile DatabaseMetrics metrics = null; // Operation metrics (null if not collected).
+    private final ByteBuffer header = ByteBuffer.allocate( headerSize ); // Header read/write buffer.
+    private final ByteBuffer link = ByteBuffer.allocate( 9 ); // Tombstone (free chain link) read/write buffer.
+    private final ThreadLocal<ByteBuffer> slotBuffer = ThreadLocal.withInitial( () -> ByteBuffer.allocate( (int)getRecordSize() ) ); // Per thread record buffer.
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantReadWriteLock structureLock = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock[] stripes = new ReentrantReadWriteLock[lockStripes];
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private final Condition addsDone = stateLock.newCondition(); // Signalled when no add is in flight.
+    private final AsyncDispatcher asyncDispatcher = new AsyncDispatcher(); // Asynchronous request queues.
+    private final AtomicLong versionClock = new AtomicLong(); // Version of the latest copy on write change.
+    private final ConcurrentHashMap<Long, AtomicReferenceArray<SlotVersion>> versions = new ConcurrentHashMap<Long, AtomicReferenceArray<SlotVersion>>(); // Old slot images kept for snapshots, by block of scanBlockRecords slots.
+    private final ReentrantLock versionLock = new ReentrantLock(); // Guards open snapshot versions.
+    private final TreeMap<Long, Integer> openVersions = new TreeMap<Long, Integer>(); // Versions of open snapshots (and their counts).
+    private volatile int openSnapshots = 0;  // Number of open snapshots.
+
+    // Database constructor, opens the db RAF file of base class type records (for example,
+    // new Database<Book, Integer>( Book.class, "Books.dat" )) and loads its key index.
+    public Database( final Class<T> type, final String file ) throws IOException { this( type, file, false ); }
+
+    // Database constructor, optionally selecting memory-mapped record I/O.
+    public Database( final Class<T> type, final String file, final boolean mapped ) throws IOException { this( type, file, mapped, false ); }
 
-    // Database constructor, opens the db RAF file.
-    public Database( final String file ) throws IOException {
+    // Database constructor, optionally selecting memory-mapped record I/O and an off-heap key index.
+    public Database( final Class<T> type, final String file, final boolean mapped, final boolean offHeapIndex ) throws IOException {
+      super( type );
+      for ( int i=0; i<lockStripes; i++ )
+        stripes[i] = new ReentrantReadWriteLock();
+      final int dot = file.lastIndexOf( '.' );
+      baseName = ( dot > file.lastIndexOf( File.separatorChar ) ? file.substring( 0, dot ) : file );
       dbFile = new RandomAccessFile( file, "rw" );
+      channel = dbFile.getChannel();
+      final boolean created = ( dbFile.length() == 0 );
+      readHeader();
+      // Recovery, repeat changes logged since the last checkpoint (a new db file starts a new log).
+      wal = new WriteAheadLog( baseName + walExtension );
+      final long replayed;
+      if ( created ) {
+        wal.reset();
+        replayed = 0;
+      } else
+        replayed = wal.replay( this::redo );
+      appendEnd = numRecords;
+      allocated = ( dbFile.length() - headerSize ) / getRecordSize();
+      if ( mapped )
+        mappedFile = new MappedFile( channel, headerSize, getRecordSize() );
+      // Load the key index saved at the last clean close, otherwise rebuild it from the db file
+      // (which also re-links the free slot chain after recovery).
+      index = new IntLongMap( offHeapIndex );
+      indexLoaded = ( replayed == 0 && closeStamp != 0 && index.load( baseName + indexExtension, closeStamp ) );
+      if ( !indexLoaded )
+        rebuildIndex();
+      if ( replayed > 0 ) {
+        markChanged();
+        checkpointLocked();
+      }
+    }
+
+    /*********************************************************************
+     * Secondary indexes. Each declared index is a B+tree file next to the
+     * db file (e.g. the "price" index of Books.dat is Books.price.idx),
+     * mapping the field value to record slots.
+     *********************************************************************/
+    private class SecondaryIndex {
+      private final String name;                                // Index name.
+      private final BTreeIndex tree;                            // Value to slot tree.
+      private final ToDoubleFunction<? super T> field;          // Indexed field.
+
+      SecondaryIndex( final String name, final BTreeIndex tree, final ToDoubleFunction<? super T> field ) {
+        this.name = name;
+        this.tree = tree;
+        this.field = field;
+      }
+    }
+
+    // Declare a secondary index on a numeric field, for example:
+    //   database.createIndex( "price", Book::getPrice );
+    //   database.createIndex( "year", Book::getYearPublished );
+    // An existing index file is reused if it is up to date, otherwise it is rebuilt from the db file.
+    public void createIndex( final String name, final ToDoubleFunction<? super T> field ) throws IOException {
+      final DatabaseMetrics metrics = this.metrics;
+      final long start = ( metrics != null ? System.nanoTime() : 0 );
+
+      structureLock.writeLock().lock();
+      try {
+        if ( findIndex( name ) != null )
+          throw new IllegalArgumentException( "Index " + name + " already exists." );
+        final SecondaryIndex secondary = new SecondaryIndex( name, new BTreeIndex( baseName + "." + name + indexExtension ), field );
+        // Index is current only if it was closed with the db, and the db has not changed since.
+        if ( closeStamp == 0 || changed || !secondary.tree.isValid( closeStamp ) ) {
+          secondary.tree.clear();
+          for ( long i=0; i<getRecords(); i++ ) {
+            final Record<T, K> record = readSlot( i );
+            if ( !record.isDeleted() )
+              secondary.tree.insert( field.applyAsDouble( record.get() ), i );
+          }
+        }
+        final List<SecondaryIndex> declared = new ArrayList<SecondaryIndex>( secondaries );
+        declared.add( secondary );
+        secondaries = declared;
+      } catch ( IOException e ) {
+        throw e;
+      } catch ( Exception e ) {
+        throw new IOException( "Unable to build index " + name + " " + e.getMessage() + "." );
+      } finally {
+        structureLock.writeLock().unlock();
+        if ( metrics != null )
+          metrics.record( DatabaseMetrics.Operation.CREATE_INDEX, start );
+      }
+    }
+
+    // Return records whose indexed field lies between from and to (inclusive), in field order.
+    // The iterator is lazy, reading index pages and records only as it advances.
+    public Iterator<Record<T, K>> rangeQuery( final String name, final double from, final double to ) {
+      final SecondaryIndex secondary = findIndex( name );
+      if ( secondary == null )
+        throw new IllegalArgumentException( "No index named " + name + "." );
+      return new RangeIterator( secondary, from, to );
+    }
+
+    private SecondaryIndex findIndex( final String name ) {
+      for ( SecondaryIndex secondary : secondaries )
+        if ( secondary.name.equals( name ) )
+          return secondary;
+      return null;
+    }
+
+    // Add record at slot to all secondary indexes.
+    private void indexSecondaries( final Record<T, K> record, final long slot ) throws IOException {
+      for ( SecondaryIndex secondary : secondaries )
+        secondary.tree.insert( secondary.field.applyAsDouble( record.get() ), slot );
+    }
+
+    // Remove record at slot from all secondary indexes.
+    private void unindexSecondaries( final Record<T, K> record, final long slot ) throws IOException {
+      for ( SecondaryIndex secondary : secondaries )
+        secondary.tree.remove( secondary.field.applyAsDouble( record.get() ), slot );
+    }
+
+    // First change since opening invalidates the close stamp on disk (so stale secondary index
+    // files are detected even if their index was not declared while the db changed).
+    private void markChanged() throws IOException {
+      if ( changed )
+        return;
+      stateLock.lock();
+      try {
+        if ( !changed ) {
+          closeStamp = 0;
+          writeHeader();
+          changed = true;
+        }
+      } finally {
+        stateLock.unlock();
+      }
+    }
+
+    /*********************************************************************
+     * This class walks a secondary index range, returning each record
+     * whose field value is in range. Records are read as the iterator
+     * advances. Entries changed after their index page was read are
+     * skipped, so the iterator is weakly consistent with concurrent
+     * changes, but it fails (ConcurrentModificationException) if the db
+     * is compacted while it is in use, since records move.
+     *********************************************************************/
+    private class RangeIterator implements Iterator<Record<T, K>> {
+      private final SecondaryIndex secondary; // Index walked.
+      private final BTreeIndex.Cursor cursor; // Index range cursor.
+      private final long generation;          // Db generation when query began.
+      private Record<T, K> next = null;       // Next record, or null if not yet read.
+      private boolean done = false;           // Range exhausted.
+      private final DatabaseMetrics metrics = Database.this.metrics; // Metrics (null if not collected).
+      private final long start = ( metrics != null ? System.nanoTime() : 0 ); // Query start time.
+
+      RangeIterator( final SecondaryIndex secondary, final double from, final double to ) {
+        this.secondary = secondary;
+        this.cursor = secondary.tree.range( from, to );
+        this.generation = Database.this.generation;
+      }
+
+      public boolean hasNext() {
+        if ( next == null && !done )
+          next = advance();
+        return next != null;
+      }
+
+      public Record<T, K> next() {
+        if ( !hasNext() )
+          throw new NoSuchElementException();
+        final Record<T, K> record = next;
+        next = null;
+        return record;
+      }
+
+      // Read record of next current index entry, or null at end of range.
+      private Record<T, K> advance() {
+        structureLock.readLock().lock();
+        try {
+          if ( generation != Database.this.generation )
+            throw new ConcurrentModificationException( "Database compacted during range query." );
+          while ( cursor.next() ) {
+            if ( metrics != null )
+              metrics.increment( DatabaseMetrics.Counter.RECORDS_SCANNED );
+            final Record<T, K> record = readStable( cursor.slot() );
+            // Skip entry whose record was deleted or changed since its index page was read.
+            if ( !record.isDeleted() && Double.compare( secondary.field.applyAsDouble( record.get() ), cursor.value() ) == 0 )
+              return record;
+          }
+        } catch ( EOFException e ) {
+          System.out.println( "Reached EOF " + e.toString() + "." );
+          failed( DatabaseMetrics.Operation.RANGE_QUERY, e );
+        } catch ( IOException e ) {
+          System.out.println( "Probably reached EOF " + e.getMessage() + "." );
+          failed( DatabaseMetrics.Operation.RANGE_QUERY, e );
+        } catch ( ConcurrentModificationException e ) {
+          throw e;
+        } catch ( Exception e ) {
+          System.out.println( "An exception occurred querying " + e.getMessage() + "." );
+          failed( DatabaseMetrics.Operation.RANGE_QUERY, e );
+        } finally {
+          structureLock.readLock().unlock();
+        }
+        done = true;
+        if ( metrics != null )
+          metrics.record( DatabaseMetrics.Operation.RANGE_QUERY, start );
+        return null;
+      }
+    } // End of RangeIterator class.
+
+    // Read record at slot under its key's stripe lock, so a record being updated is never seen half written.
+    // Note, caller must hold the structure lock.
+    private Record<T, K> readStable( final long slot ) throws Exception {
+      Record<T, K> record = readSlot( slot );
+      while ( !record.isDeleted() ) {
+        final int key = record.getIntKey();
+        final ReentrantReadWriteLock stripe = stripe( key );
+        stripe.readLock().lock();
+        try {
+          record = readSlot( slot );
+          if ( record.isDeleted() || key == record.getIntKey() )
+            break;
+        } finally {
+          stripe.readLock().unlock();
+        }
+      }
+      return record;
+    }
+
+    /*********************************************************************
+     * Scans. A scan reads the db file in blocks of scanBlockRecords slots
+     * (one positional read or mapped copy per block, made under every
+     * stripe's read lock so no record is seen half written) and skips
+     * tombstones by their status byte. Each live record is decoded into a
+     * single reused (flyweight) object of the base class (see
+     * RecordCodec.newFlyweight), its String fields left encoded until
+     * asked for, and tested against the scan predicate; only a match is
+     * then projected (or copied). So rows the predicate rejects, and
+     * fields neither the predicate nor the projection reads, cost no
+     * allocation.
+     *
+     * Scan streams split by slot range (in whole blocks), so a parallel
+     * stream (e.g. scan().parallel()) scans the file on every worker of
+     * the ForkJoinPool, each worker with its own block and flyweight;
+     * the aggregates below run this way.
+     *
+     * A scan covers the slots in use when it starts. It is weakly
+     * consistent with concurrent changes (each block is read as of its
+     * read), and fails (ConcurrentModificationException) if the db is
+     * compacted while it is in use, since records move. A scan of a
+     * snapshot (see snapshot) instead sees every record as of the
+     * snapshot; the aggregates below each scan a snapshot of their own.
+     *********************************************************************/
+    // Lazy stream of (copies of) the objects of all live records.
+    public Stream<T> scan() { return scan( r -> true ); }
+
+    // Lazy stream of (copies of) the objects of the live records matching where.
+    public Stream<T> scan( final Predicate<? super T> where ) { return scan( where, codec::copy ); }
+
+    // Lazy stream of the projection (select) of the live records matching where. Note, where and
+    // select are passed the flyweight object, which they must not keep.
+    public <R> Stream<R> scan( final Predicate<? super T> where, final Function<? super T, ? extends R> select ) {
+      return StreamSupport.stream( new ScanSpliterator<R>( new ScanCursor( where ), select ), false );
+    }
+
+    // Flyweight cursor over the live records matching where.
+    public ScanCursor cursor( final Predicate<? super T> where ) { return new ScanCursor( where ); }
+
+    // Number of live records matching where (parallel scan).
+    public long count( final Predicate<? super T> where ) {
+      try ( Snapshot snapshot = snapshot() ) {
+        return snapshot.count( where );
+      }
+    }
+
+    // Count, sum, minimum, average and maximum of a numeric field (e.g. Book::getPrice) of live
+    // records matching where (parallel scan).
+    public DoubleSummaryStatistics statistics( final Predicate<? super T> where, final ToDoubleFunction<? super T> field ) {
+      try ( Snapshot snapshot = snapshot() ) {
+        return snapshot.statistics( where, field );
+      }
+    }
+
+    // Statistics of a numeric field of live records matching where, grouped by an int field (e.g.
+    // statisticsBy( r -> true, Book::getYearPublished, Book::getPrice )) (parallel scan).
+    public Map<Integer, DoubleSummaryStatistics> statisticsBy( final Predicate<? super T> where, final ToIntFunction<? super T> group,
+                                                               final ToDoubleFunction<? super T> field ) {
+      try ( Snapshot snapshot = snapshot() ) {
+        return snapshot.statisticsBy( where, group, field );
+      }
+    }
+
+    /*********************************************************************
+     * This class accumulates the statistics of a field by group for a
+     * scan (one per worker, merged at the end), in an open addressing
+     * table keyed by the unboxed group so accumulating a row allocates
+     * nothing.
+     *********************************************************************/
+    private class Groups {
+      private final ToIntFunction<? super T> group;    // Grouping field.
+      private final ToDoubleFunction<? super T> field; // Field summarized.
+      private int[] keys = new int[64];       // Group of each table entry.
+      private DoubleSummaryStatistics[] stats = new DoubleSummaryStatistics[64]; // Statistics (null if entry empty).
+      private int size = 0;                   // Number of groups.
+
+      Groups( final ToIntFunction<? super T> group, final ToDoubleFunction<? super T> field ) {
+        this.group = group;
+        this.field = field;
+      }
+
+      // Accumulate a record.
+      void add( final T value ) { statistics( group.applyAsInt( value ) ).accept( field.applyAsDouble( value ) ); }
+
+      // Accumulate another worker's groups.
+      void merge( final Groups other ) {
+        for ( int i=0; i<other.stats.length; i++ )
+          if ( other.stats[i] != null )
+            statistics( other.keys[i] ).combine( other.stats[i] );
+      }
+
+      Map<Integer, DoubleSummaryStatistics> toMap() {
+        final Map<Integer, DoubleSummaryStatistics> map = new TreeMap<Integer, DoubleSummaryStatistics>();
+        for ( int i=0; i<stats.length; i++ )
+          if ( stats[i] != null )
+            map.put( keys[i], stats[i] );
+        return map;
+      }
+
+      // Statistics of group key, added if new.
+      private DoubleSummaryStatistics statistics( final int key ) {
+        int i = IntLongMap.mix( key ) & (stats.length - 1);
+        while ( stats[i] != null ) {
+          if ( keys[i] == key )
+            return stats[i];
+          i = (i + 1) & (stats.length - 1);
+        }
+        if ( 2*(size + 1) > stats.length ) {
+          grow();
+          return statistics( key );
+        }
+        keys[i] = key;
+        size++;
+        return stats[i] = new DoubleSummaryStatistics();
+      }
+
+      // Double table capacity.
+      private void grow() {
+        final int[] oldKeys = keys;
+        final DoubleSummaryStatistics[] oldStats = stats;
+        keys = new int[oldStats.length*2];
+        stats = new DoubleSummaryStatistics[oldStats.length*2];
+        for ( int i=0; i<oldStats.length; i++ )
+          if ( oldStats[i] != null ) {
+            int j = IntLongMap.mix( oldKeys[i] ) & (stats.length - 1);
+            while ( stats[j] != null )
+              j = (j + 1) & (stats.length - 1);
+            keys[j] = oldKeys[i];
+            stats[j] = oldStats[i];
+          }
+      }
+    } // End of Groups class.
+
+    /*********************************************************************
+     * This class walks the db file a block at a time, decoding each live
+     * record matching its predicate into one reused (flyweight) record.
+     *********************************************************************/
+    public class ScanCursor {
+      private final Predicate<? super T> where; // Scan predicate.
+      private final Snapshot snapshot;        // Snapshot scanned (null for the current records).
+      private final Record<T, K> record = new Record<T, K>( codec, codec.newFlyweight() ); // Flyweight record.
+      private final ByteBuffer block;         // Block of slots read.
+      private final long generation;          // Db generation when scan began.
+      private long slot;                      // Next slot to read into block.
+      private long end;                       // Slot past end of scan.
+      private boolean done = false;           // Scan exhausted.
+      private final DatabaseMetrics metrics = Database.this.metrics; // Metrics (null if not collected).
+      private final long start = ( metrics != null ? System.nanoTime() : 0 ); // Scan start time.
+
+      private ScanCursor( final Predicate<? super T> where ) { this( where, null ); }
+
+      private ScanCursor( final Predicate<? super T> where, final Snapshot snapshot ) {
+        this( where, snapshot, 0, ( snapshot != null ? snapshot.records : getRecords() ), Database.this.generation );
+      }
+
+      // Cursor over slots from (inclusive) to end (exclusive).
+      private ScanCursor( final Predicate<? super T> where, final Snapshot snapshot, final long from, final long end, final long generation ) {
+        this.where = where;
+        this.snapshot = snapshot;
+        this.block = ByteBuffer.allocate( (int)( scanBlockRecords*getRecordSize() ) );
+        this.block.flip(); // Empty.
+        this.generation = generation;
+        this.slot = from;
+        this.end = end;
+      }
+
+      // Hand the second half of the unread slots (whole blocks) to a new cursor, or return null if too few.
+      private ScanCursor split() {
+        if ( block.hasRemaining() || end - slot < 2*scanBlockRecords )
+          return null;
+        final long middle = slot + ( (end - slot)/2/scanBlockRecords )*scanBlockRecords;
+        final ScanCursor other = new ScanCursor( where, snapshot, middle, end, generation );
+        end = middle;
+        return other;
+      }
+
+      // Number of slots not yet read.
+      private long remaining() { return end - slot; }
+
+      // Advance to the next matching record, returns false at end of scan.
+      public boolean next() {
+        final int size = (int)getRecordSize();
+        while ( !done ) {
+          while ( block.hasRemaining() ) {
+            final int position = block.position();
+            if ( block.get( position ) == Record.DELETED ) {
+              block.position( position + size ); // Skip tombstone undecoded.
+              continue;
+            }
+            read( block, record );
+            if ( where.test( record.get() ) )
+              return true;
+          }
+          done = !fill();
+          if ( done && metrics != null )
+            metrics.record( DatabaseMetrics.Operation.SCAN, start );
+        }
+        return false;
+      }
+
+      // Current record (its flyweight object). Note, it is overwritten by the next call to next().
+      public T record() { return record.get(); }
+
+      // Read the next block of slots, returns false at end of scan.
+      private boolean fill() {
+        if ( slot >= end )
+          return false;
+        final int count = (int)Math.min( scanBlockRecords, end - slot );
+        block.clear();
+        block.limit( count*(int)getRecordSize() );
+        structureLock.readLock().lock();
+        try {
+          if ( generation != Database.this.generation )
+            throw new ConcurrentModificationException( "Database compacted during scan." );
+          if ( snapshot != null ) {
+            // Slots being written may be read torn, restore replaces them (their old images were kept first).
+            readBlock();
+            snapshot.restore( slot, block );
+          } else {
+            for ( ReentrantReadWriteLock stripe : stripes )
+              stripe.readLock().lock();
+            try {
+              readBlock();
+            } finally {
+              for ( ReentrantReadWriteLock stripe : stripes )
+                stripe.readLock().unlock();
+            }
+          }
+          block.flip();
+          slot += count;
+          if ( metrics != null )
+            metrics.add( DatabaseMetrics.Counter.RECORDS_SCANNED, count );
+          return true;
+        } catch ( EOFException e ) {
+          System.out.println( "Reached EOF " + e.toString() + "." );
+          failed( DatabaseMetrics.Operation.SCAN, e );
+        } catch ( IOException e ) {
+          System.out.println( "Probably reached EOF " + e.getMessage() + "." );
+          failed( DatabaseMetrics.Operation.SCAN, e );
+        } finally {
+          structureLock.readLock().unlock();
+        }
+        block.clear().flip();
+        return false;
+      }
+
+      // Read block of slots from the db file.
+      private void readBlock() throws IOException {
+        if ( mappedFile != null ) {
+          mappedFile.read( slot, block );
+          countIO( DatabaseMetrics.Counter.BYTES_READ, block.limit(), false );
+        } else
+          readFully( block, slotPosition( slot ) );
+      }
+    } // End of ScanCursor class.
+
+    // Stream source over a scan cursor, projecting each match.
+    private class ScanSpliterator<R> implements Spliterator<R> {
+      private final ScanCursor cursor;                          // Scan position.
+      private final Function<? super T, ? extends R> select; // Projection.
+
+      ScanSpliterator( final ScanCursor cursor, final Function<? super T, ? extends R> select ) {
+        this.cursor = cursor;
+        this.select = select;
+      }
+
+      public boolean tryAdvance( final Consumer<? super R> action ) {
+        if ( !cursor.next() )
+          return false;
+        action.accept( select.apply( cursor.record() ) );
+        return true;
+      }
+
+      public void forEachRemaining( final Consumer<? super R> action ) {
+        while ( cursor.next() )
+          action.accept( select.apply( cursor.record() ) );
+      }
+
+      public Spliterator<R> trySplit() {
+        final ScanCursor other = cursor.split();
+        return ( other == null ? null : new ScanSpliterator<R>( other, select ) );
+      }
+
+      public long estimateSize() { return cursor.remaining(); } // Slots, an upper bound on records.
+      public int characteristics() { return Spliterator.ORDERED | Spliterator.NONNULL; }
+    } // End of ScanSpliterator class.
+
+    /*********************************************************************
+     * Snapshots. A snapshot (see snapshot) pins the database as it stood
+     * when taken, a version of the version clock, for consistent scans
+     * alongside changes. Changes are copy on write while any snapshot is
+     * open: before a slot is overwritten (update, delete, or an add into a
+     * free slot) its current image is kept in a version chain for the slot,
+     * stamped with the change's version. A snapshot scan reads its blocks
+     * without taking stripe locks (so writers never wait on it), then
+     * replaces each slot changed since its version with the oldest kept
+     * image stamped later than it, which is the slot as of the snapshot.
+     * Records added past the end of the file since are not in its range.
+     *
+     * Closing a snapshot drops every kept image no open snapshot needs,
+     * so with none open nothing is kept. Compaction (which moves records)
+     * is put off while snapshots are open.
+     *********************************************************************/
+    // Pin a snapshot of the database, for scans which neither see nor hold up changes made while it is
+    // open. Note, a snapshot must be closed (try-with-resources), until then changes keep old images.
+    public Snapshot snapshot() {
+      structureLock.readLock().lock();
+      try {
+        // No change is between stamping its version and writing its slot while every stripe is held.
+        for ( ReentrantReadWriteLock stripe : stripes )
+          stripe.readLock().lock();
+        try {
+          final Snapshot snapshot = new Snapshot( versionClock.get(), getRecords() );
+          versionLock.lock();
+          try {
+            openVersions.merge( snapshot.version, 1, Integer::sum );
+            openSnapshots++;
+          } finally {
+            versionLock.unlock();
+          }
+          return snapshot;
+        } finally {
+          for ( ReentrantReadWriteLock stripe : stripes )
+            stripe.readLock().unlock();
+        }
+      } finally {
+        structureLock.readLock().unlock();
+      }
+    }
+
+    // Number of old slot images kept for open snapshots (counts them all).
+    public long retainedVersions() {
+      long count = 0;
+      for ( AtomicReferenceArray<SlotVersion> chains : versions.values() )
+        for ( int i=0; i<chains.length(); i++ )
+          for ( SlotVersion v=chains.get( i ); v!=null; v=v.older )
+            count++;
+      return count;
+    }
+
+    // Keep the current image of slot for open snapshots, before it is overwritten (copy on write).
+    // Note, caller must hold the stripe write lock of the key whose slot it is (or have popped it free).
+    private void preserve( final long slot ) throws IOException {
+      if ( openSnapshots == 0 )
+        return;
+      final byte[] image = new byte[(int)getRecordSize()];
+      if ( mappedFile != null ) {
+        mappedFile.buffer( slot ).get( image );
+        countIO( DatabaseMetrics.Counter.BYTES_READ, image.length, false );
+      } else
+        readFully( ByteBuffer.wrap( image ), slotPosition( slot ) );
+      final long version = versionClock.incrementAndGet();
+      final int i = (int)( slot % scanBlockRecords );
+      versions.compute( slot/scanBlockRecords, ( block, chains ) -> {
+        if ( chains == null )
+          chains = new AtomicReferenceArray<SlotVersion>( scanBlockRecords );
+        chains.set( i, new SlotVersion( version, image, chains.get( i ) ) );
+        return chains;
+      } );
+    }
+
+    // Drop kept images no snapshot pinned after version (exclusive) needs, and blocks left empty.
+    private void pruneVersions( final long version ) {
+      for ( Long block : versions.keySet() )
+        versions.computeIfPresent( block, ( b, chains ) -> {
+          boolean empty = true;
+          for ( int i=0; i<chains.length(); i++ ) {
+            final SlotVersion chain = chains.get( i );
+            if ( chain != null ) {
+              chains.set( i, chain.prune( version ) );
+              empty &= ( chains.get( i ) == null );
+            }
+          }
+          return ( empty ? null : chains );
+        } );
+    }
+
+    /*********************************************************************
+     * This class is a kept image of a slot, linked to the next older one.
+     * Images are immutable, a chain is replaced rather than changed.
+     *********************************************************************/
+    private class SlotVersion {
+      final long version;                     // Version of the change which overwrote the image.
+      final byte[] image;                     // Slot as it was before that change.
+      final SlotVersion older;                // Image kept before this one (or null).
+
+      SlotVersion( final long version, final byte[] image, final SlotVersion older ) {
+        this.version = version;
+        this.image = image;
+        this.older = older;
+      }
+
+      // Image of the slot as of version, or null if unchanged since (the current slot).
+      byte[] imageAt( final long version ) {
+        byte[] image = null;
+        for ( SlotVersion v=this; v!=null && v.version>version; v=v.older )
+          image = v.image;
+        return image;
+      }
+
+      // Chain without images overwritten at or before version (null if none are left). The
+      // newer images kept are copied, since a chain is never changed.
+      SlotVersion prune( final long version ) {
+        int kept = 0;
+        SlotVersion v = this;
+        for ( ; v!=null && v.version>version; v=v.older )
+          kept++;
+        if ( v == null )
+          return this; // Nothing to drop.
+        final List<SlotVersion> newer = new ArrayList<SlotVersion>( kept );
+        for ( v=this; newer.size()<kept; v=v.older )
+          newer.add( v );
+        SlotVersion chain = null;
+        for ( int i=kept-1; i>=0; i-- )
+          chain = new SlotVersion( newer.get( i ).version, newer.get( i ).image, chain );
+        return chain;
+      }
+    } // End of SlotVersion class.
+
+    /*********************************************************************
+     * This class is an open snapshot, with the scans and aggregates of the
+     * database, each as of the snapshot.
+     *********************************************************************/
+    public class Snapshot implements AutoCloseable {
+      private final long version;             // Changes through this version are seen.
+      private final long records;             // Slots in use when taken.
+      private volatile boolean open = true;
+
+      private Snapshot( final long version, final long records ) {
+        this.version = version;
+        this.records = records;
+      }
+
+      public long getVersion() { return version; }
+
+      // Lazy stream of (copies of) the objects of the live records matching where, as of the snapshot.
+      public Stream<T> scan() { return scan( r -> true ); }
+      public Stream<T> scan( final Predicate<? super T> where ) { return scan( where, codec::copy ); }
+      public <R> Stream<R> scan( final Predicate<? super T> where, final Function<? super T, ? extends R> select ) {
+        return StreamSupport.stream( new ScanSpliterator<R>( new ScanCursor( where, this ), select ), false );
+      }
+
+      // Flyweight cursor over the live records matching where, as of the snapshot.
+      public ScanCursor cursor( final Predicate<? super T> where ) { return new ScanCursor( where, this ); }
+
+      // Aggregates (parallel scans) as of the snapshot.
+      public long count( final Predicate<? super T> where ) {
+        return scan( where, r -> r ).parallel().count();
+      }
+
+      public DoubleSummaryStatistics statistics( final Predicate<? super T> where, final ToDoubleFunction<? super T> field ) {
+        return scan( where, r -> r ).parallel().mapToDouble( field ).summaryStatistics();
+      }
+
+      public Map<Integer, DoubleSummaryStatistics> statisticsBy( final Predicate<? super T> where, final ToIntFunction<? super T> group,
+                                                                 final ToDoubleFunction<? super T> field ) {
+        return scan( where, r -> r ).parallel().collect( () -> new Groups( group, field ), Groups::add, Groups::merge ).toMap();
+      }
+
+      // Release the snapshot, dropping old images only it needed.
+      public void close() {
+        final long oldest;
+        versionLock.lock();
+        try {
+          if ( !open )
+            return;
+          open = false;
+          if ( openVersions.merge( version, -1, Integer::sum ) == 0 )
+            openVersions.remove( version );
+          openSnapshots--;
+          // Images overwritten at or before the oldest open snapshot are no longer needed (with
+          // none open, none are: a snapshot taken from now on sees the current version or later).
+          oldest = ( openVersions.isEmpty() ? versionClock.get() : openVersions.firstKey() );
+        } finally {
+          versionLock.unlock();
+        }
+        pruneVersions( oldest );
+      }
+
+      // Replace the slots of block (read from slot first) changed since the snapshot with their images as of it.
+      private void restore( final long first, final ByteBuffer block ) {
+        if ( !open )
+          throw new IllegalStateException( "Snapshot closed." );
+        if ( versions.isEmpty() )
+          return;
+        final int size = (int)getRecordSize();
+        final long end = first + block.limit()/size;
+        for ( long slot=first; slot<end; ) {
+          final long b = slot/scanBlockRecords, blockEnd = Math.min( (b + 1)*scanBlockRecords, end );
+          final AtomicReferenceArray<SlotVersion> chains = versions.get( b );
+          for ( ; chains!=null && slot<blockEnd; slot++ ) {
+            final SlotVersion chain = chains.get( (int)( slot - b*scanBlockRecords ) );
+            final byte[] image = ( chain != null ? chain.imageAt( version ) : null );
+            if ( image != null )
+              System.arraycopy( image, 0, block.array(), (int)( slot - first )*size, size );
+          }
+          slot = blockEnd;
+        }
+      }
+    } // End of Snapshot class.
+
+    // Place a record cache in front of the db file (null removes it). For example,
+    // new RecordCache.Clock<>( 10000 ) holds 10,000 records, while
+    // new RecordCache.Lru<>( 1 << 20, r -> 256 ) holds about 1MB of records.
+    public void setCache( final RecordCache<K, Record<T, K>> cache ) {
+      structureLock.writeLock().lock();
+      try {
+        this.cache = cache;
+      } finally {
+        structureLock.writeLock().unlock();
+      }
+    }
+
+    // Return record cache (for its hit/miss metrics), or null if none.
+    public RecordCache<K, Record<T, K>> getCache() { return cache; }
+
+    // Collect operation metrics (null stops collecting). For example,
+    //   final DatabaseMetrics metrics = new DatabaseMetrics();
+    //   database.setMetrics( metrics );
+    //   metrics.register( "Books" ); // Expose over JMX.
+    // Note, operations in progress when metrics are changed may be counted by either.
+    public void setMetrics( final DatabaseMetrics metrics ) { this.metrics = metrics; }
+    public DatabaseMetrics getMetrics() { return metrics; }
+
+    // Count a failed operation, when collecting metrics.
+    private void failed( final DatabaseMetrics.Operation operation, final Exception e ) {
+      final DatabaseMetrics metrics = this.metrics;
+      if ( metrics != null )
+        metrics.failure( operation, e );
+    }
+
+    // Count bytes of db file I/O (and a seek, for a positional read or write), when collecting metrics.
+    private void countIO( final DatabaseMetrics.Counter counter, final long bytes, final boolean positional ) {
+      final DatabaseMetrics metrics = this.metrics;
+      if ( metrics != null ) {
+        metrics.add( counter, bytes );
+        if ( positional )
+          metrics.increment( DatabaseMetrics.Counter.SEEKS );
+      }
+    }
+
+    // Copy of a cached record, the cached record is never handed out since records are mutable.
+    private Record<T, K> copy( final Record<T, K> record ) { return new Record<T, K>( codec, codec.copy( record.get() ) ); }
+
+    // Lock stripe guarding a key.
+    private ReentrantReadWriteLock stripe( final K key ) { return stripe( intKey( key ) ); }
+    private ReentrantReadWriteLock stripe( final int key ) { return stripes[stripeIndex( key )]; }
+    private int stripeIndex( final int key ) { return IntLongMap.mix( key ) & (lockStripes - 1); }
+
+    // The key (ISBN, see Record.getKey) as an int, and back.
+    private int intKey( final K key ) { return (Integer)key; }
+    @SuppressWarnings( "unchecked" )
+    private K boxKey( final int key ) { return (K)Integer.valueOf( key ); }
+
+    // Repopulate indexes from every live record in the db file, and re-link the free slot chain.
+    // Note, caller must have exclusive access to the database.
+    private void rebuildIndex() throws IOException {
+      try {
+        index.clear( getRecords() - numDeleted );
+        for ( SecondaryIndex secondary : secondaries )
+          secondary.tree.clear();
+        numDeleted = 0;
+        freeHead = -1;
+        for ( long i=0; i<getRecords(); i++ ) {
+          final Record<T, K> record = readSlot( i );
+          if ( record.isDeleted() )
+            markFree( i, false );
+          else {
+            index.put( record.getIntKey(), i );
+            indexSecondaries( record, i );
+          }
+        }
+      } catch ( IOException e ) {
+        throw e;
+      } catch ( Exception e ) {
+        throw new IOException( "Unable to rebuild index " + e.getMessage() + "." );
+      }
+      writeHeader();
+    }
+
+    // Read db file header, or write one to a new (empty) db file.
+    private void readHeader() throws IOException {
+      if ( dbFile.length() == 0 ) {
+        writeHeader();
+        return;
+      }
+      header.clear();
+      if ( dbFile.length() < headerSize || channel.read( header, 0 ) != headerSize || header.getInt( 0 ) != dbMagic )
+        throw new IOException( "Unrecognized database file format" );
+      header.flip();
+      header.getInt(); // Magic.
+      if ( header.getInt() != dbVersion || header.getInt() != getRecordSize() )
+        throw new IOException( "Incompatible database file version or record size (older files convert with ConvertDatabase)" );
+      header.getInt(); // Reserved.
+      numRecords = header.getLong();
+      numDeleted = header.getLong();
+      freeHead = header.getLong();
+      closeStamp = header.getLong();
+    }
+
+    // Write db file header (a single positional write). Note, caller must hold the state lock.
+    private void writeHeader() throws IOException {
+      header.clear();
+      header.putInt( dbMagic ).putInt( dbVersion ).putInt( (int)getRecordSize() ).putInt( 0 );
+      header.putLong( numRecords ).putLong( numDeleted ).putLong( freeHead ).putLong( closeStamp );
+      while ( header.hasRemaining() )
+        header.put( (byte)0 );
+      header.flip();
+      writeFully( header, 0 );
+    }
+
+    /*********************************************************************
+     * Write-ahead log.
+     *********************************************************************/
+    // Select whether a change waits for the log to be synced (the default) before returning. Without
+    // sync, changes survive a crash of the program but not of the system.
+    public void setSyncCommits( final boolean sync ) { syncCommits = sync; }
+
+    // Wait for the log to hold everything through lsn (counting the log syncs this thread leads).
+    private void commit( final long lsn ) throws IOException {
+      final boolean sync = syncCommits;
+      if ( wal.commit( lsn, sync ) && sync ) {
+        final DatabaseMetrics metrics = this.metrics;
+        if ( metrics != null )
+          metrics.increment( DatabaseMetrics.Counter.LOG_SYNCS );
+      }
+    }
+
+    // Repeat a logged change (recovery). Note, runs before the file mapping exists.
+    private void redo( final byte type, final long slot, final ByteBuffer image, final long records ) throws IOException {
+      if ( slot >= 0 )
+        writeFully( image, slotPosition( slot ) );
+      if ( records >= 0 )
+        numRecords = records;
+    }
+
+    // Apply the log to the db file: sync the records, then the header, then empty the log.
+    public void checkpoint() {
+      final DatabaseMetrics metrics = this.metrics;
+      final long start = ( metrics != null ? System.nanoTime() : 0 );
+
+      appendLock.lock();
+      structureLock.writeLock().lock();
+      try {
+        checkpointLocked();
+      } catch ( IOException e ) {
+        System.out.println( "An IOException occurred during checkpoint " + e.getMessage() + "." );
+        failed( DatabaseMetrics.Operation.CHECKPOINT, e );
+      } finally {
+        structureLock.writeLock().unlock();
+        appendLock.unlock();
+        if ( metrics != null )
+          metrics.record( DatabaseMetrics.Operation.CHECKPOINT, start );
+      }
+    }
+
+    // Checkpoint. Note, caller must have exclusive access to the database (every logged change applied).
+    private void checkpointLocked() throws IOException {
+      if ( mappedFile != null )
+        mappedFile.force();
+      channel.force( false );
+      stateLock.lock();
+      try {
+        writeHeader();
+      } finally {
+        stateLock.unlock();
+      }
+      channel.force( false );
+      wal.reset();
+    }
+
+    // Checkpoint once the log has grown past its limit.
+    private void checkpointIfFull() {
+      if ( wal.size() > checkpointBytes )
+        checkpoint();
+    }
+
+    // Grow (RAF) db file by at least one extent when a slot beyond its end is needed.
+    // Note, caller must hold the state lock.
+    private void ensureAllocated( final long slots ) throws IOException {
+      if ( mappedFile != null || slots <= allocated )
+        return; // Mapped file grows by region.
+      allocated = slots + Math.max( extentRecords, allocated/8 );
+      dbFile.setLength( headerSize + allocated*getRecordSize() );
     }
 	    
     // Closes a RAF file.
@@ -170,155 +1280,962 @@ public class EliJames_HW8 {
       }
     }
     
-    // Closes "the" database RAF file.
-    public void close() { close( dbFile ); }
+    // Closes "the" database RAF file and its index, once queued asynchronous requests are done.
+    public void close() {
+      asyncDispatcher.close();
+      appendLock.lock();
+      structureLock.writeLock().lock();
+      try {
+        try {
+          truncate( getRecords() ); // Release unused extent.
+        } catch ( IOException e ) {
+          ; // Eat exception, the unused extent is harmless.
+        }
+        // A fresh close stamp marks the secondary indexes closed along with the db as current.
+        if ( changed || closeStamp == 0 ) {
+          do {
+            closeStamp = ThreadLocalRandom.current().nextLong();
+          } while ( closeStamp == 0 );
+        }
+        // Final checkpoint, writes the header and empties the log.
+        try {
+          checkpointLocked();
+        } catch ( IOException e ) {
+          closeStamp = 0; // Secondary indexes will be rebuilt upon next open (and the log replayed).
+        }
+        if ( mappedFile != null )
+          mappedFile.close();
+        close( dbFile );
+        if ( wal != null )
+          wal.close();
+        // Save the key index (with the close stamp) for the next open, unless unchanged since loaded.
+        if ( closeStamp != 0 && !( indexLoaded && !changed ) ) {
+          try {
+            index.save( baseName + indexExtension, closeStamp );
+          } catch ( IOException e ) {
+            new File( baseName + indexExtension ).delete(); // Rebuilt upon next open.
+          }
+        }
+        for ( SecondaryIndex secondary : secondaries )
+          secondary.tree.close( closeStamp );
+      } finally {
+        structureLock.writeLock().unlock();
+        appendLock.unlock();
+      }
+    }
 
     // Methods pertaining to the database record count and size.
-    private long getRecords() { return numRecords; }         // Return number of db records.
-    private long incrementRecords() { return ++numRecords; } // Increment db record count by 1.
-    private long decrementRecords() { return numRecords <= 0 ? numRecords : --numRecords; } // Decrement db record count by 1.
+    private long getRecords() { return numRecords; }         // Return number of db record slots.
+    public long size() { return numRecords - numDeleted; }   // Return number of (live) db records.
     private long getRecordSize() { return recordSize; }      // Size of db record.
+    private long slotPosition( final long slot ) { return headerSize + slot*getRecordSize(); } // File offset of slot.
+
+    // Positional read filling buffer (from position 0) at file position.
+    private void readFully( final ByteBuffer buffer, final long position ) throws IOException {
+      final int length = buffer.remaining();
+      while ( buffer.hasRemaining() )
+        if ( channel.read( buffer, position + buffer.position() ) < 0 )
+          throw new EOFException( "Slot beyond end of file" );
+      countIO( DatabaseMetrics.Counter.BYTES_READ, length, true );
+    }
+
+    // Positional write of buffer (from position 0) at file position.
+    private void writeFully( final ByteBuffer buffer, final long position ) throws IOException {
+      final int length = buffer.remaining();
+      while ( buffer.hasRemaining() )
+        channel.write( buffer, position + buffer.position() );
+      countIO( DatabaseMetrics.Counter.BYTES_WRITTEN, length, true );
+    }
+
+    // Read record at slot, through the file mapping if one is in use.
+    private Record<T, K> readSlot( final long slot ) throws Exception {
+      final ByteBuffer buffer;
+      if ( mappedFile != null ) {
+        buffer = mappedFile.buffer( slot );
+        countIO( DatabaseMetrics.Counter.BYTES_READ, getRecordSize(), false );
+      } else {
+        buffer = slotBuffer.get();
+        buffer.clear();
+        readFully( buffer, slotPosition( slot ) );
+        buffer.flip();
+      }
+      final DatabaseMetrics metrics = this.metrics;
+      if ( metrics == null )
+        return read( buffer );
+      final long start = System.nanoTime();
+      final Record<T, K> record = read( buffer );
+      metrics.record( DatabaseMetrics.Operation.DECODE, start );
+      return record;
+    }
+
+    // Write record at slot.
+    private void writeSlot( final long slot, final Record<T, K> record ) throws Exception { writeSlot( slot, encode( record ) ); }
+
+    // Write encoded record at slot, through the file mapping if one is in use.
+    private void writeSlot( final long slot, final ByteBuffer encoded ) throws IOException {
+      if ( mappedFile != null ) {
+        countIO( DatabaseMetrics.Counter.BYTES_WRITTEN, encoded.remaining(), false );
+        mappedFile.buffer( slot ).put( encoded );
+      } else
+        writeFully( encoded, slotPosition( slot ) );
+    }
+
+    // Encode record into this thread's record buffer, ready to write. Note, an unencodable
+    // record (e.g. title too long) fails here, before any slot is touched.
+    private ByteBuffer encode( final Record<T, K> record ) throws Exception {
+      final ByteBuffer buffer = slotBuffer.get();
+      buffer.clear();
+      final DatabaseMetrics metrics = this.metrics;
+      if ( metrics == null )
+        write( buffer, record );
+      else {
+        final long start = System.nanoTime();
+        write( buffer, record );
+        metrics.record( DatabaseMetrics.Operation.ENCODE, start );
+      }
+      buffer.flip();
+      return buffer;
+    }
 
-    // Add new record to database.
+    // Truncate db file to the given number of slots.
+    private void truncate( final long slots ) throws IOException {
+      if ( mappedFile != null )
+        mappedFile.truncate( slots );
+      else
+        dbFile.setLength( headerSize + slots*getRecordSize() );
+      allocated = slots;
+    }
+
+    // Tombstone ratio (0 to 1) above which a delete triggers compaction.
+    public void setCompactionThreshold( final double ratio ) { compactRatio = ratio; }
+
+    // Turns slot into a tombstone, pushing it onto the free slot chain. A tombstone
+    // holds its status byte followed by the next free slot number. Returns the log
+    // sequence number of the delete when logged.
+    // Note, caller must hold the state lock.
+    private long markFree( final long slot, final boolean logged ) throws IOException {
+      link.clear();
+      link.put( Record.DELETED ).putLong( freeHead );
+      link.flip();
+      final long lsn = ( logged ? wal.append( WriteAheadLog.DELETE, slot, link, -1 ) : 0 );
+      if ( mappedFile != null ) {
+        countIO( DatabaseMetrics.Counter.BYTES_WRITTEN, link.remaining(), false );
+        mappedFile.buffer( slot ).put( link );
+      } else
+        writeFully( link, slotPosition( slot ) );
+      freeHead = slot;
+      numDeleted++;
+      return lsn;
+    }
+
+    // Pops a slot off the free slot chain, or returns the next slot at end of file (counted
+    // in numRecords once its add finishes, see finishAdd).
+    // Note, caller must hold the state lock.
+    private long allocateSlot() throws IOException {
+      if ( freeHead < 0 ) {
+        ensureAllocated( appendEnd + 1 );
+        return appendEnd++;
+      }
+      final long slot = freeHead;
+      if ( mappedFile != null ) {
+        final ByteBuffer buffer = mappedFile.buffer( slot );
+        freeHead = buffer.getLong( buffer.position() + 1 );
+        countIO( DatabaseMetrics.Counter.BYTES_READ, link.capacity(), false );
+      } else {
+        link.clear();
+        readFully( link, slotPosition( slot ) );
+        freeHead = link.getLong( 1 );
+      }
+      numDeleted--;
+      return slot;
+    }
+
+    // Removes all tombstones by sliding live records toward the start of the file (not while a snapshot is open).
+    public void compact() {
+      final DatabaseMetrics metrics = this.metrics;
+      final long start = ( metrics != null ? System.nanoTime() : 0 );
+
+      appendLock.lock();
+      structureLock.writeLock().lock();
+      try {
+        if ( numDeleted == 0 )
+          return; // Nothing to reclaim (e.g. compacted by another thread).
+        if ( openSnapshots > 0 )
+          return; // Records can not move under open snapshots, a later delete compacts.
+        markChanged();
+        generation++;
+        // Log every move and the new record count (synced, moves overwrite records) before moving anything.
+        long j = 0; // Next compacted slot.
+        for ( long i=0; i<getRecords(); i++ ) {
+          final Record<T, K> record = readSlot( i );
+          if ( record.isDeleted() )
+            continue;
+          if ( j != i ) {
+            final long lsn = wal.append( WriteAheadLog.MOVE, j, encode( record ), -1 );
+            if ( (j & (batchRecords - 1)) == 0 )
+              wal.commit( lsn, false ); // Bound the log buffer.
+          }
+          j++;
+        }
+        wal.commit( wal.append( WriteAheadLog.COUNT, -1, null, j ), true );
+        j = 0;
+        for ( long i=0; i<getRecords(); i++ ) {
+          final Record<T, K> record = readSlot( i );
+          if ( record.isDeleted() )
+            continue;
+          if ( j != i )
+            writeSlot( j, record );
+          j++;
+        }
+        numRecords = j;
+        appendEnd = j;
+        truncate( j );
+        // Record slots have shifted, so the index is rebuilt (which also rewrites the header).
+        rebuildIndex();
+        checkpointLocked();
+      } catch ( EOFException e ) {
+        System.out.println( "Reached EOF " + e.toString() + "." );
+        failed( DatabaseMetrics.Operation.COMPACT, e );
+      } catch ( IOException e ) {
+        System.out.println( "Probably reached EOF " + e.getMessage() + "." );
+        failed( DatabaseMetrics.Operation.COMPACT, e );
+      } catch ( Exception e ) {
+        System.out.println( "An exception occurred compacting " + e.getMessage() + "." );
+        failed( DatabaseMetrics.Operation.COMPACT, e );
+      } finally {
+        structureLock.writeLock().unlock();
+        appendLock.unlock();
+        if ( metrics != null )
+          metrics.record( DatabaseMetrics.Operation.COMPACT, start );
+      }
+    }
+
+    // Add new record to database. The slot is allocated and logged under the append lock, which
+    // is released (as is the key's stripe) for the commit, so adds in flight together share a log
+    // sync (group commit). The record becomes visible (indexed, and counted if appended) once written.
     public void addRecord( final T t ) {
-      final Record<T, K> record = new Record<T, K>( t );
+      final Record<T, K> record = new Record<T, K>( codec, t );
+      final int key = record.getIntKey();
+      final ReentrantReadWriteLock stripe = stripe( key );
+      final DatabaseMetrics metrics = this.metrics;
+      final long start = ( metrics != null ? System.nanoTime() : 0 );
+      boolean appendLocked = true, stripeLocked = true, written = false;
+      long slot = -1;
 
-      if ( getRecords() >= Record.MAX_RECORDS )
-       	return; // At maximum record limit.
+      appendLock.lock();
+      structureLock.readLock().lock();
+      stripe.writeLock().lock();
       try  {
-        // Seek to end of file.
-        dbFile.seek( getRecords()*getRecordSize() ); 
-        write( dbFile, record );
-        incrementRecords();
+        // Keys are unique, quietly ignore a duplicate (or an add of the key in flight).
+        if ( index.containsKey( key ) )
+          return;
+        final ByteBuffer encoded = encode( record );
+        markChanged();
+        // Reuse a free slot, otherwise append to end of file. The slot is logged in allocation order.
+        final long lsn;
+        stateLock.lock();
+        try {
+          if ( pendingKeys.containsKey( key ) )
+            return;
+          final boolean append = ( freeHead < 0 );
+          slot = allocateSlot();
+          lsn = wal.append( WriteAheadLog.ADD, slot, encoded, ( append ? slot + 1 : -1 ) );
+          pendingKeys.put( key, slot );
+        } finally {
+          stateLock.unlock();
+        }
+        stripe.writeLock().unlock();
+        stripeLocked = false;
+        appendLock.unlock();
+        appendLocked = false;
+        commit( lsn );
+        stripe.writeLock().lock();
+        stripeLocked = true;
+        if ( slot < getRecords() )
+          preserve( slot ); // Reused free slot.
+        writeSlot( slot, encoded );
+        index.put( key, slot );
+        indexSecondaries( record, slot );
+        written = true;
       } catch ( IOException e ) {
         System.out.println( "An IOException occurred while attempting to add record." );
+        failed( DatabaseMetrics.Operation.ADD, e );
+      } catch ( IllegalArgumentException e ) {
+        System.out.println( "Unable to add record, " + e.getMessage() + "." );
+        failed( DatabaseMetrics.Operation.ADD, e );
       } catch ( Exception e ) {
         System.out.println( "A generic Exception occurred attempting to add record." );
+        failed( DatabaseMetrics.Operation.ADD, e );
+      } finally {
+        if ( slot >= 0 )
+          finishAdd( key, slot, written );
+        if ( stripeLocked )
+          stripe.writeLock().unlock();
+        structureLock.readLock().unlock();
+        if ( appendLocked )
+          appendLock.unlock();
+        if ( metrics != null )
+          metrics.record( DatabaseMetrics.Operation.ADD, start );
       }
+      checkpointIfFull();
     }
 
-    // Display all database records.
-    public void displayRecords() {
+    // End an add in flight: a failed add's slot is freed, and an appended slot is counted in
+    // numRecords once every earlier appended slot is too (so a scan never reaches a slot whose
+    // add has not finished).
+    private void finishAdd( final int key, final long slot, final boolean written ) {
+      stateLock.lock();
       try {
-        dbFile.seek( 0 ); // Go to start of file.
-        // Iterate through entire file.
-        for ( int i=0; i<getRecords(); i++ )
-          System.out.println( read( dbFile ) );
-      } catch ( EOFException e ) {
-          System.out.println( "Reached EOF " + e.toString() + "." );
+        pendingKeys.remove( key );
+        if ( !written ) {
+          try {
+            markFree( slot, false );
+          } catch ( IOException e ) {
+            ; // Eat exception, recovery re-links the free chain from tombstones.
+          }
+        }
+        if ( slot > numRecords )
+          appendsDone.add( slot ); // Wait for an earlier slot.
+        else if ( slot == numRecords ) {
+          numRecords++;
+          while ( !appendsDone.isEmpty() && appendsDone.first() == numRecords ) {
+            appendsDone.pollFirst();
+            numRecords++;
+          }
+        }
+        if ( pendingKeys.size() == 0 )
+          addsDone.signalAll();
+      } finally {
+        stateLock.unlock();
+      }
+    }
+
+    // Add many new records to database in batches (no sync).
+    public void addRecords( final Iterable<? extends T> records ) { addRecords( records, Durability.NONE ); }
+
+    // Add many new records to database in batches, with the requested durability.
+    public void addRecords( final Iterable<? extends T> records, final Durability durability ) {
+      try ( BulkLoader loader = new BulkLoader( batchRecords, durability ) ) {
+        for ( T t : records ) {
+          try {
+            loader.add( t );
+          } catch ( IllegalArgumentException e ) {
+            System.out.println( "Unable to add record, " + e.getMessage() + "." ); // Skip it, and carry on.
+            failed( DatabaseMetrics.Operation.BULK_ADD, e );
+          }
+        }
       } catch ( IOException e ) {
-          System.out.println( "Probably reached EOF " + e.getMessage() + "." );
+        System.out.println( "An IOException occurred while attempting to add records." );
+        failed( DatabaseMetrics.Operation.BULK_ADD, e );
       } catch ( Exception e ) {
-          System.out.println( "An exception occurred displaying " + e.getMessage() + "." );
+        System.out.println( "A generic Exception occurred attempting to add records." );
+        failed( DatabaseMetrics.Operation.BULK_ADD, e );
+      }
+    }
+
+    /*********************************************************************
+     * This class streams new records into the database. Records are
+     * encoded into one direct buffer and each full batch is appended with
+     * a single positional channel write, after which the index and the
+     * header record count are updated once for the whole batch. As with
+     * addRecord, duplicate keys are quietly ignored. The new record count
+     * is only logged once the records it counts are synced to the file,
+     * per batch (BATCH), or once at the end (END, and NONE, whose log
+     * record is not synced), so recovery never counts records which did
+     * not reach the file. An open loader is the single appender: it holds
+     * the append lock until closed, so it must be used (and closed) by the
+     * thread which created it.
+     *********************************************************************/
+    public class BulkLoader implements AutoCloseable {
+      private final Durability durability; // When to sync the db file.
+      private final ByteBuffer buffer;      // Encoded batch.
+      private final int[] keys;             // Keys of batch records.
+      private final IntLongMap batchKeys = new IntLongMap( false ); // Keys in batch (catches duplicates within a batch).
+      private final List<Record<T, K>> records = new ArrayList<Record<T, K>>(); // Batch records (only kept for secondary indexes).
+      private int count = 0;                // Number of records in batch.
+      private boolean open = true;          // Loader holds the append lock.
+
+      public BulkLoader( final int batchSize, final Durability durability ) {
+        if ( batchSize <= 0 )
+          throw new IllegalArgumentException( "Improper bulk-load batch size." );
+        this.durability = durability;
+        buffer = ByteBuffer.allocateDirect( (int)( batchSize*getRecordSize() ) );
+        keys = new int[batchSize];
+        appendLock.lock();
+        // Wait out adds in flight (later adds wait for the append lock), so batches append at the end of file.
+        stateLock.lock();
+        try {
+          while ( pendingKeys.size() > 0 )
+            addsDone.awaitUninterruptibly();
+        } finally {
+          stateLock.unlock();
+        }
+      }
+
+      // Encode record into batch, appending the batch once full.
+      public void add( final T t ) throws IOException {
+        final Record<T, K> record = new Record<T, K>( codec, t );
+        final int key = record.getIntKey();
+
+        structureLock.readLock().lock();
+        try {
+          // Keys are unique, quietly ignore a duplicate.
+          if ( batchKeys.containsKey( key ) || index.containsKey( key ) )
+            return;
+          write( buffer, record ); // Note, an unencodable record throws before altering the batch.
+          batchKeys.put( key, count );
+        } catch ( IOException | IllegalArgumentException e ) {
+          throw e;
+        } catch ( Exception e ) {
+          throw new IOException( "Unable to encode record " + e.getMessage() + "." );
+        } finally {
+          structureLock.readLock().unlock();
+        }
+        keys[count++] = key;
+        if ( !secondaries.isEmpty() )
+          records.add( record );
+        if ( count == keys.length )
+          flush();
+      }
+
+      // Append batch to end of db file.
+      public void flush() throws IOException {
+        if ( count == 0 )
+          return;
+        final DatabaseMetrics metrics = Database.this.metrics;
+        final long start = ( metrics != null ? System.nanoTime() : 0 );
+        structureLock.readLock().lock();
+        try {
+          markChanged();
+          final long first = getRecords();
+          stateLock.lock();
+          try {
+            ensureAllocated( first + count );
+          } finally {
+            stateLock.unlock();
+          }
+          buffer.flip();
+          writeFully( buffer, slotPosition( first ) );
+          index.reserve( count );
+          for ( int i=0; i<count; i++ )
+            index.put( keys[i], first + i );
+          for ( int i=0; i<records.size(); i++ )
+            indexSecondaries( records.get( i ), first + i );
+          if ( durability == Durability.BATCH )
+            channel.force( false );
+          // Records become visible once the record count includes them.
+          final long lsn;
+          stateLock.lock();
+          try {
+            numRecords += count;
+            appendEnd = numRecords;
+            lsn = ( durability == Durability.BATCH ? wal.append( WriteAheadLog.COUNT, -1, null, numRecords ) : 0 );
+          } finally {
+            stateLock.unlock();
+          }
+          if ( durability == Durability.BATCH )
+            wal.commit( lsn, true );
+        } finally {
+          structureLock.readLock().unlock();
+          if ( metrics != null )
+            metrics.record( DatabaseMetrics.Operation.BULK_ADD, start );
+        }
+        buffer.clear();
+        batchKeys.clear( keys.length );
+        records.clear();
+        count = 0;
+      }
+
+      // Append final (partial) batch, and give up the append lock.
+      public void close() throws IOException {
+        if ( !open )
+          return;
+        try {
+          flush();
+          if ( durability != Durability.BATCH ) {
+            channel.force( false );
+            wal.commit( wal.append( WriteAheadLog.COUNT, -1, null, getRecords() ), durability == Durability.END );
+          }
+        } finally {
+          open = false;
+          appendLock.unlock();
+        }
+        checkpointIfFull();
+      }
+    }
+
+    // Display all database records.
+    public void displayRecords() {
+      // Iterate through entire file (a block at a time) as of a snapshot, skipping tombstones.
+      try ( Snapshot snapshot = snapshot() ) {
+        for ( ScanCursor cursor = snapshot.cursor( r -> true ); cursor.next(); )
+          System.out.println( cursor.record() );
       }
     }
 
     // Return specified record, or null if not found. Note, getRecord parameter type needs to match key type.
-    public Record<T, K> getRecord( final K key ) {
+    public Record<T, K> getRecord( final K key ) { return getRecord( intKey( key ) ); }
+
+    // Return specified record, or null if not found (primitive key fast path, no boxing without a cache).
+    public Record<T, K> getRecord( final int key ) {
+      final ReentrantReadWriteLock stripe = stripe( key );
+      final DatabaseMetrics metrics = this.metrics;
+      final long start = ( metrics != null ? System.nanoTime() : 0 );
+
+      structureLock.readLock().lock();
+      stripe.readLock().lock();
       try {
-        Record<T, K> record = new Record<T, K>();
-        // Iterate through all records in file.
-        for ( int i=0; i<getRecords(); i++ ) {
-          dbFile.seek( i*getRecordSize() ); 
-          record = read( dbFile );
-          // Check for match.
-          if ( key.equals(record.getKey()) )
-            return record;
-        }  
+        final RecordCache<K, Record<T, K>> cache = this.cache;
+        if ( cache != null ) {
+          final Record<T, K> cached = cache.get( boxKey( key ) );
+          if ( metrics != null )
+            metrics.increment( cached != null ? DatabaseMetrics.Counter.CACHE_HITS : DatabaseMetrics.Counter.CACHE_MISSES );
+          if ( cached != null )
+            return copy( cached );
+        }
+        // Index lookup, then a single read of the record's slot.
+        final long loadStart = ( cache != null ? System.nanoTime() : 0 );
+        final long slot = index.get( key );
+        final Record<T, K> record = ( slot >= 0 ? readSlot( slot ) : null );
+        if ( metrics != null ) {
+          metrics.increment( DatabaseMetrics.Counter.LOOKUPS );
+          if ( record != null )
+            metrics.increment( DatabaseMetrics.Counter.LOOKUP_RECORDS );
+        }
+        if ( cache != null ) {
+          cache.recordLoad( System.nanoTime() - loadStart );
+          if ( record != null )
+            cache.put( boxKey( key ), copy( record ) );
+        }
+        return record;
       } catch ( EOFException e) {
         System.out.println("Reached EOF " + e.toString() + ".");
+        failed( DatabaseMetrics.Operation.GET, e );
       } catch ( IOException e) {
         System.out.println("Probably reached EOF " + e.getMessage() + ".");
+        failed( DatabaseMetrics.Operation.GET, e );
       } catch ( Exception e) {
         System.out.println("An exception occurred getting " + e.getMessage() + ".");
+        failed( DatabaseMetrics.Operation.GET, e );
+      } finally {
+        stripe.readLock().unlock();
+        structureLock.readLock().unlock();
+        if ( metrics != null )
+          metrics.record( DatabaseMetrics.Operation.GET, start );
       }
       return null; // Matching record not found.
     }
     
     // Update record in database file (if it exists).
     public void updateRecord( final T t ) {
-      final Record<T, K> record = new Record<T, K>( t );
+      final Record<T, K> record = new Record<T, K>( codec, codec.copy( t ) );
+      final ReentrantReadWriteLock stripe = stripe( record.getIntKey() );
+      final DatabaseMetrics metrics = this.metrics;
+      final long start = ( metrics != null ? System.nanoTime() : 0 );
+
+      structureLock.readLock().lock();
+      stripe.writeLock().lock();
       try {
-        // Check record exists.
-        if ( getRecord( (K) record.getKey() ) != null ) {
-          // Backup file pointer to beginning of current record.
-          dbFile.seek( dbFile.getFilePointer() - getRecordSize() );
-          write( dbFile, record );
+        // Check record exists (reading its old field values when secondary indexes need them).
+        final long slot = index.get( record.getIntKey() );
+        if ( slot >= 0 ) {
+          final List<SecondaryIndex> secondaries = this.secondaries;
+          final Record<T, K> old = ( secondaries.isEmpty() ? null : readSlot( slot ) );
+          markChanged();
+          // Overwrite record in place once logged, moving its secondary index entries if their field changed.
+          final ByteBuffer encoded = encode( record );
+          commit( wal.append( WriteAheadLog.UPDATE, slot, encoded, -1 ) );
+          preserve( slot );
+          writeSlot( slot, encoded );
+          for ( SecondaryIndex secondary : secondaries ) {
+            final double before = secondary.field.applyAsDouble( old.get() ), after = secondary.field.applyAsDouble( record.get() );
+            if ( Double.compare( before, after ) != 0 ) {
+              secondary.tree.remove( before, slot );
+              secondary.tree.insert( after, slot );
+            }
+          }
+          final RecordCache<K, Record<T, K>> cache = this.cache;
+          if ( cache != null )
+            cache.put( record.getKey(), record ); // Write through (record is not shared with caller).
         }
       } catch ( EOFException e) {
         System.out.println("Reached EOF " + e.toString() + ".");
+        failed( DatabaseMetrics.Operation.UPDATE, e );
       } catch ( IOException e) {
         System.out.println("Probably reached EOF " + e.getMessage() + ".");
+        failed( DatabaseMetrics.Operation.UPDATE, e );
       } catch ( Exception e) {
         System.out.println("An exception occurred updating " + e.getMessage() + ".");
+        failed( DatabaseMetrics.Operation.UPDATE, e );
+      } finally {
+        stripe.writeLock().unlock();
+        structureLock.readLock().unlock();
+        if ( metrics != null )
+          metrics.record( DatabaseMetrics.Operation.UPDATE, start );
       }
+      checkpointIfFull();
     }
     
-    // Delete record in db file (if it exists), and create a (date/time stamped) backup file.
-    // Note, getRecord parameter type needs to match key type.
-    public void deleteRecord( final K key ) {
-      // Confirm record exists prior to attempting deletion.
-      if ( getRecord( key ) == null )
-        return; // Quiet fail occurs here...
-
-      // Read entire db file contents into array (except record to be deleted).
+    // Delete record in db file (if it exists) by marking its slot as a tombstone.
+    // Note, deleteRecord parameter type needs to match key type.
+    public void deleteRecord( final K key ) { deleteRecord( intKey( key ) ); }
+
+    // Delete record (if it exists), primitive key.
+    public void deleteRecord( final int key ) {
+      final ReentrantReadWriteLock stripe = stripe( key );
+      final DatabaseMetrics metrics = this.metrics;
+      final long start = ( metrics != null ? System.nanoTime() : 0 );
+
+      structureLock.readLock().lock();
+      stripe.writeLock().lock();
       try {
-        // Temporary holds db file contents (minus record to be deleted).
-        List<Record<T, K>> list = new ArrayList<Record<T, K>>();
-        Record<T, K> record = new Record<T, K>(); // Temporary storage.
-
-        dbFile.seek( 0 ); // Seek to start of file.
-        for ( int i=0; i<getRecords(); i++ ) {
-         record = read( dbFile );
-         // Copy all records, ignoring the record to be deleted. 
-         if ( !key.equals( record.getKey()) )
-           list.add( record );
-        }
-
-        // Create new db file, and copy list contents to it. 
-        RandomAccessFile newDBFile = null;
-        newDBFile = new RandomAccessFile( tempDatabaseFileName, "rw" );
-        for ( int i=0; i<(getRecords() - 1); i++ ) 
-          write( newDBFile, list.get( i ) );
-        close( newDBFile ); // Close so it can be renamed.
-          
-        // Decrement db record count.
-        decrementRecords();
+        final RecordCache<K, Record<T, K>> cache = this.cache;
+        if ( cache != null )
+          cache.invalidate( boxKey( key ) );
+        final long slot = index.remove( key );
+        if ( slot < 0 )
+          return; // Quiet fail occurs here...
+        markChanged();
+        final List<SecondaryIndex> secondaries = this.secondaries;
+        if ( !secondaries.isEmpty() )
+          unindexSecondaries( readSlot( slot ), slot );
+        // The tombstone is written as it is logged (the free chain must stay readable), it is a
+        // single small write and recovery re-links the free chain from tombstones.
+        preserve( slot );
+        final long lsn;
+        stateLock.lock();
+        try {
+          lsn = markFree( slot, true );
+        } finally {
+          stateLock.unlock();
+        }
+        commit( lsn );
       } catch ( EOFException e ) {
         System.out.println( "Reached EOF " + e.toString() + "." );
+        failed( DatabaseMetrics.Operation.DELETE, e );
       } catch ( IOException e ) {
         System.out.println( "Probably reached EOF " + e.getMessage() + "." );
+        failed( DatabaseMetrics.Operation.DELETE, e );
       } catch ( Exception e ) {
         System.out.println( "An exception occurred deleting " + e.getMessage() + "." );
+        failed( DatabaseMetrics.Operation.DELETE, e );
+      } finally {
+        stripe.writeLock().unlock();
+        structureLock.readLock().unlock();
+        if ( metrics != null )
+          metrics.record( DatabaseMetrics.Operation.DELETE, start );
       }
+      // Reclaim space once tombstones pass the threshold (and no snapshot is open).
+      if ( numDeleted > compactRatio*getRecords() && openSnapshots == 0 )
+        compact();
+      else
+        checkpointIfFull();
+    }
 
-      // Rename old file for backup purposes.
-      try {
-        close(); // Close old file so we can rename it.
-        final File oldFile = new File( databaseFileName ); // Existing database file become backup.
-        final String timeStamp = new SimpleDateFormat( "yy.MM.dd.HH.mm.ss" ).format( new Date() );
-        oldFile.renameTo( new File( filename + timeStamp + extension ) );
-        // Rename new file before we use it.
-        final File newFile = new File( tempDatabaseFileName ); // New database file.
-        newFile.renameTo( oldFile ); // Rename new file to old file name.
-        // Open this new database file.
-        dbFile = new RandomAccessFile( databaseFileName, "rw" );
-      } catch( Exception e ) { 
-        System.err.println( "Exception occured deleting record." ); 
+    /*********************************************************************
+     * Asynchronous API. getRecordAsync, addRecordAsync, updateRecordAsync
+     * and deleteRecordAsync return at once, with a future completed by the
+     * result of the blocking method (a lookup's record, or null), after any
+     * failure has been reported as the blocking method reports it. A future
+     * only completes exceptionally if the request can not run (e.g. the
+     * database is closed).
+     *
+     * Lookups are pipelined: they queue for a dispatcher thread, which
+     * takes everything queued (up to asyncBatchRecords at a time) as one
+     * batch, locks the batch's stripes once, resolves each key through the
+     * cache and key index, then reads the slots in file order, nearby slots
+     * (at most asyncGapRecords apart) coalesced into a single positional
+     * read of up to scanBlockRecords slots. Thousands of lookups in flight
+     * so cost a few sorted reads, not a read (and a thread) apiece.
+     *
+     * Changes run on the async executor (see setAsyncExecutor). Changes in
+     * flight together share log syncs through the log's group commit, and
+     * their slot writes follow it.
+     *********************************************************************/
+    // Look up a record asynchronously. Note, the future completes on the dispatcher thread, so a
+    // dependent stage which blocks (or calls back into the database) should use an *Async stage method.
+    public CompletableFuture<Record<T, K>> getRecordAsync( final K key ) { return asyncDispatcher.lookup( intKey( key ) ); }
+    public CompletableFuture<Record<T, K>> getRecordAsync( final int key ) { return asyncDispatcher.lookup( key ); }
+
+    // Change a record asynchronously.
+    public CompletableFuture<Void> addRecordAsync( final T t ) { return asyncDispatcher.change( () -> addRecord( t ) ); }
+    public CompletableFuture<Void> updateRecordAsync( final T t ) { return asyncDispatcher.change( () -> updateRecord( t ) ); }
+    public CompletableFuture<Void> deleteRecordAsync( final K key ) { return deleteRecordAsync( intKey( key ) ); }
+    public CompletableFuture<Void> deleteRecordAsync( final int key ) { return asyncDispatcher.change( () -> deleteRecord( key ) ); }
+
+    // Run asynchronous changes on executor (null restores the default, a pool of asyncChangeThreads
+    // daemon threads). For JDK 21 virtual threads, setAsyncExecutor( newVirtualThreadExecutor() ).
+    // Note, the database never shuts down an executor it was given.
+    public void setAsyncExecutor( final Executor executor ) { asyncDispatcher.setExecutor( executor ); }
+
+    // A queued lookup.
+    private class AsyncLookup {
+      final int key;                                            // Key looked up.
+      final CompletableFuture<Record<T, K>> future = new CompletableFuture<Record<T, K>>();
+      final long start;                                         // When queued (System.nanoTime), with metrics.
+      Record<T, K> record = null;                               // Record found.
+
+      AsyncLookup( final int key, final long start ) {
+        this.key = key;
+        this.start = start;
       }
     }
+
+    /*********************************************************************
+     * This class queues asynchronous requests: lookups for its dispatcher
+     * thread (started by the first lookup) and changes for the executor.
+     * Closing it fails new requests, then waits for the dispatcher to
+     * drain its queue and for changes in flight to finish.
+     *********************************************************************/
+    private class AsyncDispatcher implements Runnable {
+      private final ReentrantLock lock = new ReentrantLock();  // Guards fields below.
+      private final Condition queued = lock.newCondition();    // Lookups queued, or closing.
+      private final Condition idle = lock.newCondition();      // No changes in flight.
+      private ArrayList<AsyncLookup> lookups = new ArrayList<AsyncLookup>(); // Queued lookups.
+      private Thread thread = null;                             // Dispatcher thread (null until needed).
+      private Executor executor = null;                         // Change executor (null until needed).
+      private ExecutorService pool = null;                      // Default executor, once created.
+      private int changes = 0;                                  // Changes in flight.
+      private boolean closed = false;
+      // Dispatcher thread only.
+      private final long[] order = new long[asyncBatchRecords]; // Slot (high bits) and lookup (low bits) of each read.
+      private ByteBuffer block = null;                          // Coalesced read buffer.
+
+      CompletableFuture<Record<T, K>> lookup( final int key ) {
+        final DatabaseMetrics metrics = Database.this.metrics;
+        final AsyncLookup lookup = new AsyncLookup( key, metrics != null ? System.nanoTime() : 0 );
+        lock.lock();
+        try {
+          if ( closed )
+            lookup.future.completeExceptionally( new IllegalStateException( "Database closed" ) );
+          else {
+            if ( thread == null ) {
+              thread = new Thread( this, "Database lookups " + baseName );
+              thread.setDaemon( true );
+              thread.start();
+            }
+            lookups.add( lookup );
+            if ( lookups.size() == 1 )
+              queued.signal();
+          }
+        } finally {
+          lock.unlock();
+        }
+        return lookup.future;
+      }
+
+      CompletableFuture<Void> change( final Runnable change ) {
+        final CompletableFuture<Void> future = new CompletableFuture<Void>();
+        final Executor executor;
+        lock.lock();
+        try {
+          if ( closed ) {
+            future.completeExceptionally( new IllegalStateException( "Database closed" ) );
+            return future;
+          }
+          if ( this.executor == null ) {
+            pool = Executors.newFixedThreadPool( asyncChangeThreads, r -> {
+              final Thread thread = new Thread( r, "Database changes " + baseName );
+              thread.setDaemon( true );
+              return thread;
+            } );
+            this.executor = pool;
+          }
+          executor = this.executor;
+          changes++;
+        } finally {
+          lock.unlock();
+        }
+        try {
+          executor.execute( () -> {
+            try {
+              change.run();
+              future.complete( null );
+            } catch ( Throwable e ) {
+              future.completeExceptionally( e );
+            } finally {
+              finished();
+            }
+          } );
+        } catch ( RejectedExecutionException e ) {
+          finished();
+          future.completeExceptionally( e );
+        }
+        return future;
+      }
+
+      // A change is no longer in flight.
+      private void finished() {
+        lock.lock();
+        try {
+          if ( --changes == 0 )
+            idle.signalAll();
+        } finally {
+          lock.unlock();
+        }
+      }
+
+      void setExecutor( final Executor executor ) {
+        lock.lock();
+        try {
+          if ( pool != null && executor != pool ) {
+            pool.shutdown(); // Changes already queued on it still run.
+            pool = null;
+          }
+          this.executor = executor;
+        } finally {
+          lock.unlock();
+        }
+      }
+
+      // Fail new requests, then wait for queued lookups and changes in flight.
+      void close() {
+        final Thread thread;
+        lock.lock();
+        try {
+          closed = true;
+          queued.signal();
+          while ( changes > 0 )
+            idle.awaitUninterruptibly();
+          if ( pool != null )
+            pool.shutdown();
+          thread = this.thread;
+        } finally {
+          lock.unlock();
+        }
+        boolean interrupted = false;
+        while ( thread != null && thread.isAlive() ) {
+          try {
+            thread.join();
+          } catch ( InterruptedException e ) {
+            interrupted = true;
+          }
+        }
+        if ( interrupted )
+          Thread.currentThread().interrupt();
+      }
+
+      // Dispatcher thread, serves queued lookups in batches until closed.
+      public void run() {
+        ArrayList<AsyncLookup> batch = new ArrayList<AsyncLookup>();
+        while ( true ) {
+          lock.lock();
+          try {
+            while ( lookups.isEmpty() && !closed )
+              queued.awaitUninterruptibly();
+            if ( lookups.isEmpty() )
+              return; // Closed, and drained.
+            final ArrayList<AsyncLookup> swap = batch;
+            batch = lookups;
+            lookups = swap;
+          } finally {
+            lock.unlock();
+          }
+          for ( int i=0; i<batch.size(); i+=asyncBatchRecords )
+            serve( batch.subList( i, Math.min( i + asyncBatchRecords, batch.size() ) ) );
+          batch.clear();
+        }
+      }
+
+      // Look up a batch (at most asyncBatchRecords), then complete its futures.
+      private void serve( final List<AsyncLookup> batch ) {
+        final DatabaseMetrics metrics = Database.this.metrics;
+        final int shift = 32 - Integer.numberOfLeadingZeros( asyncBatchRecords - 1 );
+        final boolean[] locked = new boolean[lockStripes];
+        for ( AsyncLookup lookup : batch )
+          locked[stripeIndex( lookup.key )] = true;
+
+        structureLock.readLock().lock();
+        // Stripes are taken in stripe order (as a scan takes them), so batches never deadlock with each other.
+        for ( int i=0; i<lockStripes; i++ )
+          if ( locked[i] )
+            stripes[i].readLock().lock();
+        try {
+          // Resolve each key to a slot, through the cache.
+          final RecordCache<K, Record<T, K>> cache = Database.this.cache;
+          int reads = 0;
+          for ( int i=0; i<batch.size(); i++ ) {
+            final AsyncLookup lookup = batch.get( i );
+            if ( cache != null ) {
+              final Record<T, K> cached = cache.get( boxKey( lookup.key ) );
+              if ( metrics != null )
+                metrics.increment( cached != null ? DatabaseMetrics.Counter.CACHE_HITS : DatabaseMetrics.Counter.CACHE_MISSES );
+              if ( cached != null ) {
+                lookup.record = copy( cached );
+                continue;
+              }
+            }
+            final long slot = index.get( lookup.key );
+            if ( metrics != null ) {
+              metrics.increment( DatabaseMetrics.Counter.LOOKUPS );
+              if ( slot >= 0 )
+                metrics.increment( DatabaseMetrics.Counter.LOOKUP_RECORDS );
+            }
+            if ( slot >= 0 )
+              order[reads++] = ( slot << shift ) | i;
+          }
+          // Read the slots in file order, a run of nearby slots at a time.
+          Arrays.sort( order, 0, reads );
+          if ( block == null )
+            block = ByteBuffer.allocateDirect( (int)( scanBlockRecords*getRecordSize() ) ); // Read without a copy.
+          for ( int r=0; r<reads; ) {
+            final long first = order[r] >>> shift;
+            int end = r + 1;
+            while ( end < reads && (order[end] >>> shift) - (order[end - 1] >>> shift) <= asyncGapRecords
+                    && (order[end] >>> shift) - first < scanBlockRecords )
+              end++;
+            block.clear();
+            block.limit( (int)( ( (order[end - 1] >>> shift) - first + 1 )*getRecordSize() ) );
+            if ( mappedFile != null ) {
+              mappedFile.read( first, block );
+              countIO( DatabaseMetrics.Counter.BYTES_READ, block.limit(), false );
+            } else
+              readFully( block, slotPosition( first ) );
+            for ( ; r<end; r++ ) {
+              final AsyncLookup lookup = batch.get( (int)( order[r] & (asyncBatchRecords - 1) ) );
+              block.position( (int)( ( (order[r] >>> shift) - first )*getRecordSize() ) );
+              lookup.record = read( block );
+              if ( cache != null )
+                cache.put( boxKey( lookup.key ), copy( lookup.record ) );
+            }
+          }
+        } catch ( EOFException e ) {
+          System.out.println( "Reached EOF " + e.toString() + "." );
+          failed( DatabaseMetrics.Operation.GET, e );
+        } catch ( IOException e ) {
+          System.out.println( "Probably reached EOF " + e.getMessage() + "." );
+          failed( DatabaseMetrics.Operation.GET, e );
+        } catch ( Exception e ) {
+          System.out.println( "An exception occurred getting " + e.getMessage() + "." );
+          failed( DatabaseMetrics.Operation.GET, e );
+        } finally {
+          for ( int i=0; i<lockStripes; i++ )
+            if ( locked[i] )
+              stripes[i].readLock().unlock();
+          structureLock.readLock().unlock();
+        }
+        // Complete outside the locks (a lookup's latency includes its time queued).
+        for ( AsyncLookup lookup : batch ) {
+          if ( metrics != null )
+            metrics.record( DatabaseMetrics.Operation.GET, lookup.start );
+          lookup.future.complete( lookup.record );
+        }
+      }
+    } // End of AsyncDispatcher class.
   
   } // End of Database class.
 
   /*********************************************************************
    * Start of the main database driver program. A very basic test of an
-   * example (book) database. Note, command line arguments are ignored.
+   * example (book) database. Note, an optional "mapped" command line
+   * argument selects memory-mapped record I/O, others are ignored.
    *********************************************************************/
   public static void main( String[] args ) {
     // Instantiate ourself.
     EliJames_HW8 dbApp = new EliJames_HW8();
+    final boolean mapped = ( args.length > 0 && args[0].equalsIgnoreCase( "mapped" ) );
     // Instantiate new Book database (try-with-resources).
-    try ( EliJames_HW8.Database<Book, Integer> database = dbApp.new Database<Book, Integer>( databaseFileName ) ) {
+    try ( EliJames_HW8.Database<Book, Integer> database = dbApp.new Database<Book, Integer>( Book.class, databaseFileName, mapped ) ) {
       List<Book> bookList = new ArrayList<Book>( 5 );
 
       // Create 5 books.
@@ -328,24 +2245,23 @@ public class EliJames_HW8 {
       bookList.add( new Book( 44, "The Wild Truth", 2015, 11.68 ) );
       bookList.add( new Book( 50, "The Sound of a Wild Snail Eating", 2016, 12.25 ) );
       // Add the 5 books to database.
-      bookList.stream().forEach( e -> database.addRecord(e) );
+      database.addRecords( bookList );
 
       // Display all records in database.
       System.out.println( "Database records after creating and adding 5 books:" );
       database.displayRecords();
     
       // Change a book title.
-      Book book = new Book();
-      book = database.getRecord( 3 );
-      if ( book != null ) {
-        book.setTitle( "Not Into the Wild" );
-        database.updateRecord( book );
+      Record<Book, Integer> record = database.getRecord( 3 );
+      if ( record != null ) {
+        record.get().setTitle( "Not Into the Wild" );
+        database.updateRecord( record.get() );
       }
       // Change a book price.
-      book = database.getRecord( 50 );
-      if ( book != null ) {
-        book.setPrice( 99.99 );
-        database.updateRecord( book );
+      record = database.getRecord( 50 );
+      if ( record != null ) {
+        record.get().setPrice( 99.99 );
+        database.updateRecord( record.get() );
       }
       // Display all records in database.
       System.out.println( "Database records after modifying ISBN #3 title, and ISBN #50 price:" );
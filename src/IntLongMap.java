@@ -0,0 +1,356 @@
+/*************************************************************************
+ * Title: Primitive Int to Long Hash Map
+ * File: IntLongMap.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This class implements an in-memory open-addressing (linear probe) hash
+ * table from int keys to long values (e.g. ISBN to record slot), without
+ * boxing: a lookup allocates nothing and an entry costs 12 bytes of table
+ * (16 at the lowest load). The table is held either on the Java heap
+ * (int and long arrays) or off-heap (direct buffers, outside the garbage
+ * collected heap), and may be saved to and loaded from a file.
+ *
+ * Snapshot file layout:
+ *   Header: magic (int), version (int), stamp (long), entries (long).
+ *   Entries: key (int), value (long).
+ *
+ * Notes:
+ *  (1) Values must not be negative (a stored value of 0 marks an empty
+ *      bucket, so buckets hold value + 1). Removal shifts the following
+ *      probe chain back, so there are no deleted bucket markers.
+ *  (2) The map is safe for concurrent use. Lookups are optimistic (a
+ *      StampedLock validated read, retried under the read lock if a
+ *      change overlapped it), while changes take the write lock.
+ *  (3) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Load opens read only, put throws once full. JME
+ *************************************************************************/
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.StampedLock;
+
+public class IntLongMap {
+  /*********************************************************************
+   * Constants.
+   *********************************************************************/
+  private static final int MAGIC = 0x494D4150;     // "IMAP".
+  private static final int VERSION = 1;            // Snapshot format (and hash function) version.
+  private static final int HEADER_SIZE = 24;       // Size of snapshot header in bytes.
+  private static final int ENTRY_SIZE = 12;        // Size of snapshot entry (and off-heap bucket) in bytes.
+  private static final int MIN_CAPACITY = 64;      // Initial number of buckets.
+  private static final int MAX_CAPACITY = 1 << 30; // Maximum number of buckets.
+
+  /*********************************************************************
+   * Bucket table storage.
+   *********************************************************************/
+  private static abstract class Table {
+    final int mask;                                // Number of buckets - 1 (power of 2).
+    Table( final int capacity ) { mask = capacity - 1; }
+    abstract int key( int b );
+    abstract long value( int b );                  // Stored value (value + 1), 0 if empty.
+    abstract void set( int b, int key, long value );
+  }
+
+  // Java heap arrays.
+  private static class HeapTable extends Table {
+    private final int[] keys;
+    private final long[] values;
+
+    HeapTable( final int capacity ) {
+      super( capacity );
+      keys = new int[capacity];
+      values = new long[capacity];
+    }
+
+    int key( final int b ) { return keys[b]; }
+    long value( final int b ) { return values[b]; }
+    void set( final int b, final int key, final long value ) { keys[b] = key; values[b] = value; }
+  }
+
+  // Off-heap direct buffers, in segments (a buffer holds at most 2GB).
+  private static class DirectTable extends Table {
+    private static final int SEGMENT_SHIFT = 26;   // Buckets per segment (2^26, 768MB).
+    private final ByteBuffer[] segments;
+
+    DirectTable( final int capacity ) {
+      super( capacity );
+      final int perSegment = Math.min( capacity, 1 << SEGMENT_SHIFT );
+      segments = new ByteBuffer[capacity / perSegment];
+      for ( int i=0; i<segments.length; i++ )
+        segments[i] = ByteBuffer.allocateDirect( perSegment*ENTRY_SIZE ); // Zero filled.
+    }
+
+    int key( final int b ) { return segments[b >>> SEGMENT_SHIFT].getInt( offset( b ) ); }
+    long value( final int b ) { return segments[b >>> SEGMENT_SHIFT].getLong( offset( b ) + 4 ); }
+    void set( final int b, final int key, final long value ) {
+      segments[b >>> SEGMENT_SHIFT].putInt( offset( b ), key ).putLong( offset( b ) + 4, value );
+    }
+
+    private static int offset( final int b ) { return (b & ((1 << SEGMENT_SHIFT) - 1))*ENTRY_SIZE; }
+  }
+
+  /*********************************************************************
+   * Instance fields (all private)
+   *********************************************************************/
+  private final boolean offHeap;                   // Table held in direct buffers.
+  private final int maxCapacity;                   // Maximum number of buckets (power of 2).
+  private Table table;                             // Bucket table.
+  private volatile long entries = 0;               // Number of entries.
+  private final StampedLock lock = new StampedLock();
+
+  /*********************************************************************
+   * Class constructor.
+   *********************************************************************/
+  public IntLongMap( final boolean offHeap ) { this( offHeap, MAX_CAPACITY ); }
+
+  // Map with a smaller maximum table (tests of a full map).
+  IntLongMap( final boolean offHeap, final int maxCapacity ) {
+    this.offHeap = offHeap;
+    this.maxCapacity = Math.max( MIN_CAPACITY, Math.min( Integer.highestOneBit( maxCapacity ), MAX_CAPACITY ) );
+    this.table = newTable( MIN_CAPACITY );
+  }
+
+  // Mixes an int key (murmur3 finalizer), so neighbouring keys (e.g. sequential ISBNs) spread
+  // across the table rather than forming long linear probe clusters.
+  public static int mix( int h ) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    return h ^ ( h >>> 16 );
+  }
+
+  // Number of entries.
+  public long size() { return entries; }
+
+  // Return value of key, or -1 if not present.
+  public long get( final int key ) {
+    long stamp = lock.tryOptimisticRead();
+    if ( stamp != 0 ) {
+      final long value = find( table, key );
+      if ( lock.validate( stamp ) )
+        return value;
+    }
+    stamp = lock.readLock();
+    try {
+      return find( table, key );
+    } finally {
+      lock.unlockRead( stamp );
+    }
+  }
+
+  // True if key is present.
+  public boolean containsKey( final int key ) { return get( key ) >= 0; }
+
+  // Add or replace entry, returns previous value, or -1 if none. Throws IllegalStateException if
+  // the key is new and the table, at its maximum size, is full.
+  public long put( final int key, final long value ) {
+    if ( value < 0 )
+      throw new IllegalArgumentException( "Negative map value." );
+    final long stamp = lock.writeLock();
+    try {
+      if ( (entries + 1)*4 > (table.mask + 1L)*3 )
+        resize( entries + 1 );
+      final Table t = table;
+      int b = mix( key ) & t.mask;
+      long v;
+      while ( (v = t.value( b )) != 0 ) {
+        if ( t.key( b ) == key ) {
+          t.set( b, key, value + 1 );
+          return v - 1;
+        }
+        b = ( b + 1 ) & t.mask;
+      }
+      // One bucket is always left empty, which ends every probe chain.
+      if ( entries >= t.mask )
+        throw new IllegalStateException( "Map full." );
+      t.set( b, key, value + 1 );
+      entries++;
+      return -1;
+    } finally {
+      lock.unlockWrite( stamp );
+    }
+  }
+
+  // Remove entry, returns its value, or -1 if not present.
+  public long remove( final int key ) {
+    final long stamp = lock.writeLock();
+    try {
+      final Table t = table;
+      int b = mix( key ) & t.mask;
+      long v;
+      while ( (v = t.value( b )) != 0 ) {
+        if ( t.key( b ) == key ) {
+          // Shift back any following entry whose home bucket does not lie between the hole and it.
+          int hole = b;
+          for ( int n = (b + 1) & t.mask; t.value( n ) != 0; n = (n + 1) & t.mask ) {
+            final int home = mix( t.key( n ) ) & t.mask;
+            if ( ((n - home) & t.mask) >= ((n - hole) & t.mask) ) {
+              t.set( hole, t.key( n ), t.value( n ) );
+              hole = n;
+            }
+          }
+          t.set( hole, 0, 0 );
+          entries--;
+          return v - 1;
+        }
+        b = ( b + 1 ) & t.mask;
+      }
+      return -1;
+    } finally {
+      lock.unlockWrite( stamp );
+    }
+  }
+
+  // Remove all entries, sizing the table to hold the expected number of entries.
+  public void clear( final long expected ) {
+    final long stamp = lock.writeLock();
+    try {
+      table = newTable( capacityFor( expected ) );
+      entries = 0;
+    } finally {
+      lock.unlockWrite( stamp );
+    }
+  }
+
+  // Grow table once, up front, to hold additional entries (used ahead of a batch of puts).
+  public void reserve( final long additional ) {
+    final long stamp = lock.writeLock();
+    try {
+      if ( (entries + additional)*4 > (table.mask + 1L)*3 )
+        resize( entries + additional );
+    } finally {
+      lock.unlockWrite( stamp );
+    }
+  }
+
+  /*********************************************************************
+   * Snapshot file.
+   *********************************************************************/
+  // Write all entries to file, with the caller's stamp (to detect a stale snapshot).
+  public void save( final String file, final long stamp ) throws IOException {
+    final long lockStamp = lock.readLock();
+    try ( RandomAccessFile snapshot = new RandomAccessFile( file, "rw" ) ) {
+      final FileChannel channel = snapshot.getChannel();
+      snapshot.setLength( 0 );
+      final ByteBuffer buffer = ByteBuffer.allocateDirect( 64*1024 );
+      buffer.putInt( MAGIC ).putInt( VERSION ).putLong( stamp ).putLong( entries );
+      final Table t = table;
+      for ( int b=0; b<=t.mask; b++ ) {
+        final long v = t.value( b );
+        if ( v == 0 )
+          continue;
+        if ( buffer.remaining() < ENTRY_SIZE )
+          drain( channel, buffer );
+        buffer.putInt( t.key( b ) ).putLong( v - 1 );
+      }
+      drain( channel, buffer );
+    } finally {
+      lock.unlockRead( lockStamp );
+    }
+  }
+
+  // Replace entries with those saved in file, returns false (leaving the map empty) if the file
+  // is missing, damaged, or was not saved with the expected stamp.
+  public boolean load( final String file, final long stamp ) throws IOException {
+    clear( 0 );
+    if ( !new File( file ).isFile() )
+      return false;
+    try ( RandomAccessFile snapshot = new RandomAccessFile( file, "r" ) ) {
+      final FileChannel channel = snapshot.getChannel();
+      final ByteBuffer buffer = ByteBuffer.allocateDirect( 64*1024 );
+      buffer.limit( HEADER_SIZE );
+      if ( !fill( channel, buffer, 0 ) || buffer.getInt( 0 ) != MAGIC || buffer.getInt( 4 ) != VERSION || buffer.getLong( 8 ) != stamp )
+        return false;
+      final long count = buffer.getLong( 16 );
+      if ( count < 0 || count >= maxCapacity || snapshot.length() != HEADER_SIZE + count*ENTRY_SIZE )
+        return false;
+      clear( count );
+      long position = HEADER_SIZE;
+      for ( long remaining=count; remaining>0; ) {
+        final int n = (int)Math.min( remaining, buffer.capacity() / ENTRY_SIZE );
+        buffer.clear();
+        buffer.limit( n*ENTRY_SIZE );
+        if ( !fill( channel, buffer, position ) ) {
+          clear( 0 );
+          return false;
+        }
+        buffer.flip();
+        for ( int i=0; i<n; i++ )
+          put( buffer.getInt(), buffer.getLong() );
+        position += n*ENTRY_SIZE;
+        remaining -= n;
+      }
+      return true;
+    }
+  }
+
+  /*********************************************************************
+   * Private helper methods.
+   *********************************************************************/
+  // Probe table for key, returning its value, or -1 if not present.
+  private static long find( final Table t, final int key ) {
+    int b = mix( key ) & t.mask;
+    for ( int i=0; i<=t.mask; i++ ) {
+      final long v = t.value( b );
+      if ( v == 0 )
+        return -1; // End of probe chain.
+      if ( t.key( b ) == key )
+        return v - 1;
+      b = ( b + 1 ) & t.mask;
+    }
+    return -1;
+  }
+
+  private Table newTable( final int capacity ) { return offHeap ? new DirectTable( capacity ) : new HeapTable( capacity ); }
+
+  // Smallest table (power of 2, up to the maximum) holding expected entries at no more than three quarters load.
+  private int capacityFor( final long expected ) {
+    int capacity = MIN_CAPACITY;
+    while ( capacity < maxCapacity && capacity*3L < expected*4 )
+      capacity <<= 1;
+    return capacity;
+  }
+
+  // Re-insert all entries into a larger table. Note, caller must hold the write lock.
+  private void resize( final long expected ) {
+    final Table old = table, t = newTable( capacityFor( expected ) );
+    for ( int b=0; b<=old.mask; b++ ) {
+      final long v = old.value( b );
+      if ( v == 0 )
+        continue;
+      final int key = old.key( b );
+      int n = mix( key ) & t.mask;
+      while ( t.value( n ) != 0 )
+        n = ( n + 1 ) & t.mask;
+      t.set( n, key, v );
+    }
+    table = t;
+  }
+
+  // Write (and empty) buffer at end of channel.
+  private static void drain( final FileChannel channel, final ByteBuffer buffer ) throws IOException {
+    buffer.flip();
+    while ( buffer.hasRemaining() )
+      channel.write( buffer, channel.size() );
+    buffer.clear();
+  }
+
+  // Positional read filling buffer, returns false at end of file.
+  private static boolean fill( final FileChannel channel, final ByteBuffer buffer, final long position ) throws IOException {
+    final int start = buffer.position();
+    while ( buffer.hasRemaining() )
+      if ( channel.read( buffer, position + buffer.position() - start ) < 0 )
+        return false;
+    return true;
+  }
+
+} // End of IntLongMap class.
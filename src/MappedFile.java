@@ -0,0 +1,139 @@
+/*************************************************************************
+ * Title: Memory-Mapped Record File
+ * File: MappedFile.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This class maps a file of fixed-width records into memory through its
+ * FileChannel. The file is mapped in regions holding a whole number of
+ * records, so a record never straddles two regions, and each region is
+ * only mapped when first touched. Mapping a region past the end of the
+ * file grows the file to the end of that region, so the file grows in
+ * region sized extents.
+ *
+ * Notes:
+ *  (1) buffer() returns a private view (duplicate) of the region buffer
+ *      positioned at the requested slot, so any number of threads may
+ *      read and write records concurrently. Mapping a new region is
+ *      serialized by a lock (a ReentrantLock rather than a monitor, so a
+ *      virtual thread blocked in the file system while mapping does not
+ *      pin its carrier thread).
+ *  (2) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Made thread-safe (per call buffer views). JME
+ *   10/18/2026: Added bulk read of consecutive records. JME
+ *   10/18/2026: Replaced monitors with a ReentrantLock (virtual threads). JME
+ *************************************************************************/
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class MappedFile implements AutoCloseable {
+  /*********************************************************************
+   * Constants.
+   *********************************************************************/
+  private static final int REGION_SIZE = 1 << 20; // Target size of a mapped region in bytes.
+
+  /*********************************************************************
+   * Instance fields (all private)
+   *********************************************************************/
+  private final FileChannel channel;               // Mapped file channel.
+  private final long base;                         // File offset of slot 0.
+  private final int recordSize;                    // Size of a record in bytes.
+  private final int recordsPerRegion;              // Number of records per mapped region.
+  private volatile MappedByteBuffer[] regions = new MappedByteBuffer[0]; // Mapped regions (null until touched).
+  private final ReentrantLock lock = new ReentrantLock(); // Serializes mapping changes.
+
+  /*********************************************************************
+   * Class constructor.
+   *********************************************************************/
+  public MappedFile( final FileChannel channel, final long base, final long recordSize ) {
+    if ( recordSize <= 0 || recordSize > REGION_SIZE )
+      throw new IllegalArgumentException( "Improper record size for mapped file." );
+    this.channel = channel;
+    this.base = base;
+    this.recordSize = (int)recordSize;
+    this.recordsPerRegion = REGION_SIZE / this.recordSize;
+  }
+
+  // Return a view of the region buffer positioned at the start of the slot.
+  public ByteBuffer buffer( final long slot ) throws IOException {
+    final int r = (int)( slot / recordsPerRegion );
+    final MappedByteBuffer[] mapped = regions;
+    ByteBuffer region = ( r < mapped.length ? mapped[r] : null );
+    if ( region == null )
+      region = map( r );
+    region = region.duplicate();
+    region.position( (int)(slot % recordsPerRegion)*recordSize );
+    return region;
+  }
+
+  // Copy consecutive records, starting at slot, into buffer (filling it). One view per region crossed.
+  public void read( long slot, final ByteBuffer buffer ) throws IOException {
+    while ( buffer.hasRemaining() ) {
+      final ByteBuffer region = buffer( slot );
+      final int length = Math.min( buffer.remaining(), region.remaining() );
+      region.limit( region.position() + length );
+      buffer.put( region );
+      slot += length / recordSize;
+    }
+  }
+
+  // Flush all modified regions to the storage device.
+  public void force() {
+    for ( MappedByteBuffer region : regions )
+      if ( region != null )
+        region.force();
+  }
+
+  // Drop all mappings and truncate the file to the given number of slots.
+  public void truncate( final long slots ) throws IOException {
+    lock.lock();
+    try {
+      force();
+      regions = new MappedByteBuffer[0];
+      channel.truncate( base + slots*recordSize );
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Flush modified regions. Note, the channel belongs to (and is closed by) the caller.
+  public void close() {
+    lock.lock();
+    try {
+      force();
+      regions = new MappedByteBuffer[0];
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Map region (once), publishing a new region array.
+  private MappedByteBuffer map( final int r ) throws IOException {
+    lock.lock();
+    try {
+      MappedByteBuffer[] mapped = regions;
+      if ( r < mapped.length && mapped[r] != null )
+        return mapped[r];
+      if ( r >= mapped.length )
+        mapped = Arrays.copyOf( mapped, Math.max( r + 1, mapped.length*2 ) );
+      else
+        mapped = mapped.clone();
+      mapped[r] = channel.map( FileChannel.MapMode.READ_WRITE, base + (long)r*recordsPerRegion*recordSize,
+                               (long)recordsPerRegion*recordSize );
+      regions = mapped;
+      return mapped[r];
+    } finally {
+      lock.unlock();
+    }
+  }
+
+} // End of MappedFile class.
@@ -0,0 +1,322 @@
+/*************************************************************************
+ * Title: Bounded Record Cache
+ * File: RecordCache.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This class defines a bounded, thread-safe key to value cache placed in
+ * front of the database file. The cache is bounded by total weight; with
+ * the default weigher every entry weighs 1, so the bound is an entry
+ * count, while a weigher returning the (approximate) size of a value
+ * bounds the cache in bytes. Two eviction policies are provided:
+ *   Lru   - least recently used (access ordered LinkedHashMap).
+ *   Clock - CLOCK (second chance); hits only set a reference bit, so
+ *           lookups take no lock.
+ * Hit, miss, eviction and load (miss service) counts and times are kept
+ * so the cache may be sized for the hot set.
+ *
+ * Notes:
+ *  (1) The cache does not copy values. The database stores its own
+ *      copies and hands out copies on a hit, since records are mutable.
+ *  (2) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Clock ring drops replaced and invalidated entries. JME
+ *************************************************************************/
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+public abstract class RecordCache<K, V> {
+  // Returns the weight (e.g. size in bytes) of a cached value.
+  public static interface Weigher<V> {
+    public long weigh( V value );
+  }
+
+  /*********************************************************************
+   * Instance fields (all private)
+   *********************************************************************/
+  private final long maxWeight;                    // Cache bound (total weight).
+  private final Weigher<V> weigher;                // Value weigher.
+  private final LongAdder hits = new LongAdder();  // Lookups found in cache.
+  private final LongAdder misses = new LongAdder(); // Lookups not found in cache.
+  private final LongAdder evictions = new LongAdder(); // Entries evicted to stay within bound.
+  private final LongAdder loadNanos = new LongAdder(); // Time spent servicing misses.
+
+  /*********************************************************************
+   * Class constructors.
+   *********************************************************************/
+  // Cache bounded by entry count.
+  protected RecordCache( final long maxEntries ) { this( maxEntries, v -> 1 ); }
+
+  // Cache bounded by total weight.
+  protected RecordCache( final long maxWeight, final Weigher<V> weigher ) {
+    if ( maxWeight <= 0 )
+      throw new IllegalArgumentException( "Improper cache bound." );
+    this.maxWeight = maxWeight;
+    this.weigher = weigher;
+  }
+
+  /*********************************************************************
+   * Cache operations, implemented by each eviction policy.
+   *********************************************************************/
+  public abstract V get( K key );                  // Return cached value, or null (counts hit/miss).
+  public abstract void put( K key, V value );      // Add or replace value (may evict).
+  public abstract void invalidate( K key );        // Remove value, if cached.
+  public abstract void clear();                    // Remove all values.
+  public abstract long size();                     // Number of cached values.
+
+  /*********************************************************************
+   * Metrics.
+   *********************************************************************/
+  // Record time taken to load a value after a miss.
+  public void recordLoad( final long nanos ) { loadNanos.add( nanos ); }
+
+  public long getHits() { return hits.sum(); }
+  public long getMisses() { return misses.sum(); }
+  public long getEvictions() { return evictions.sum(); }
+
+  public double getHitRatio() {
+    final long h = hits.sum(), total = h + misses.sum();
+    return total == 0 ? 0.0 : (double)h / total;
+  }
+
+  public double getAverageLoadNanos() {
+    final long m = misses.sum();
+    return m == 0 ? 0.0 : (double)loadNanos.sum() / m;
+  }
+
+  @Override
+  public String toString() {
+    return String.format( "%s: %d entries, hit ratio %.3f, %d evictions, average load %.1f us",
+                          getClass().getSimpleName(), size(), getHitRatio(), getEvictions(), getAverageLoadNanos()/1000.0 );
+  }
+
+  /*********************************************************************
+   * Helpers for the eviction policies.
+   *********************************************************************/
+  protected long getMaxWeight() { return maxWeight; }
+  protected long weigh( final V value ) { return weigher.weigh( value ); }
+  protected void hit() { hits.increment(); }
+  protected void miss() { misses.increment(); }
+  protected void evicted() { evictions.increment(); }
+
+  /*********************************************************************
+   * Least recently used eviction.
+   *********************************************************************/
+  public static class Lru<K, V> extends RecordCache<K, V> {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, V> map = new LinkedHashMap<K, V>( 16, 0.75f, true ); // Access ordered.
+    private final Map<K, Long> weights = new HashMap<K, Long>(); // Weight of each entry.
+    private long weight = 0;                       // Total weight of entries.
+
+    public Lru( final long maxEntries ) { super( maxEntries ); }
+    public Lru( final long maxWeight, final Weigher<V> weigher ) { super( maxWeight, weigher ); }
+
+    public V get( final K key ) {
+      lock.lock();
+      try {
+        final V value = map.get( key ); // Moves entry to most recently used.
+        if ( value == null )
+          miss();
+        else
+          hit();
+        return value;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public void put( final K key, final V value ) {
+      final long w = weigh( value );
+      lock.lock();
+      try {
+        remove( key );
+        map.put( key, value );
+        weights.put( key, w );
+        weight += w;
+        // Evict least recently used entries (eldest first) until within bound.
+        final Iterator<K> eldest = map.keySet().iterator();
+        while ( weight > getMaxWeight() && eldest.hasNext() ) {
+          final K k = eldest.next();
+          eldest.remove();
+          weight -= weights.remove( k );
+          evicted();
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public void invalidate( final K key ) {
+      lock.lock();
+      try {
+        remove( key );
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public void clear() {
+      lock.lock();
+      try {
+        map.clear();
+        weights.clear();
+        weight = 0;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public long size() {
+      lock.lock();
+      try {
+        return map.size();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    // Remove entry. Note, caller must hold the lock.
+    private void remove( final K key ) {
+      if ( map.remove( key ) != null )
+        weight -= weights.remove( key );
+    }
+  } // End of Lru class.
+
+  /*********************************************************************
+   * CLOCK (second chance) eviction. Entries sit in a ring in insertion
+   * order; the hand evicts the first entry whose reference bit is clear,
+   * clearing (and passing over) referenced entries on its way. Replaced
+   * and invalidated entries stay in the ring until the hand reaches them,
+   * or until they outnumber the live entries, when the ring is compacted
+   * (so the ring stays within twice the entries however the hot set is
+   * rewritten).
+   *********************************************************************/
+  public static class Clock<K, V> extends RecordCache<K, V> {
+    // Cache entry with its reference bit.
+    private static class Node<K, V> {
+      final K key;
+      final V value;
+      final long weight;
+      volatile boolean referenced = false;
+      volatile boolean removed = false;            // Invalidated or replaced (skipped by hand).
+
+      Node( final K key, final V value, final long weight ) {
+        this.key = key;
+        this.value = value;
+        this.weight = weight;
+      }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock(); // Guards ring and weight (not lookups).
+    private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<K, Node<K, V>>();
+    private final ArrayDeque<Node<K, V>> ring = new ArrayDeque<Node<K, V>>(); // Head is under the hand.
+    private int dead = 0;                          // Removed nodes still in the ring.
+    private long weight = 0;                       // Total weight of entries.
+
+    public Clock( final long maxEntries ) { super( maxEntries ); }
+    public Clock( final long maxWeight, final Weigher<V> weigher ) { super( maxWeight, weigher ); }
+
+    public V get( final K key ) {
+      final Node<K, V> node = map.get( key );
+      if ( node == null ) {
+        miss();
+        return null;
+      }
+      node.referenced = true;
+      hit();
+      return node.value;
+    }
+
+    public void put( final K key, final V value ) {
+      final Node<K, V> node = new Node<K, V>( key, value, weigh( value ) );
+      lock.lock();
+      try {
+        remove( map.put( key, node ) );
+        ring.addLast( node );
+        weight += node.weight;
+        // Sweep the hand until within bound.
+        while ( weight > getMaxWeight() && !ring.isEmpty() ) {
+          final Node<K, V> n = ring.pollFirst();
+          if ( n.removed ) {
+            dead--;                                // Already gone, drop from ring.
+            continue;
+          }
+          if ( n.referenced && n != node ) {
+            n.referenced = false;                  // Second chance.
+            ring.addLast( n );
+          } else {
+            map.remove( n.key, n );
+            n.removed = true;
+            weight -= n.weight;
+            evicted();
+          }
+        }
+        compact();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public void invalidate( final K key ) {
+      lock.lock();
+      try {
+        remove( map.remove( key ) );
+        compact();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public void clear() {
+      lock.lock();
+      try {
+        map.clear();
+        ring.clear();
+        dead = 0;
+        weight = 0;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    public long size() { return map.size(); }
+
+    // Number of nodes in the ring, live and removed (tests).
+    int ringSize() {
+      lock.lock();
+      try {
+        return ring.size();
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    // Mark node removed (it is dropped from the ring when the hand reaches it). Note, caller must hold the lock.
+    private void remove( final Node<K, V> node ) {
+      if ( node != null && !node.removed ) {
+        node.removed = true;
+        weight -= node.weight;
+        dead++;
+      }
+    }
+
+    // Drop removed nodes from the ring once they outnumber the live ones. Note, caller must hold the lock.
+    private void compact() {
+      if ( dead > 16 && dead*2 > ring.size() ) {
+        ring.removeIf( n -> n.removed );
+        dead = 0;
+      }
+    }
+  } // End of Clock class.
+
+} // End of RecordCache class.
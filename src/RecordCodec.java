@@ -0,0 +1,120 @@
+/*************************************************************************
+ * Title: Record Codec
+ * File: RecordCodec.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This interface defines a binary codec for the stored fields of an
+ * entity (those marked with DbField), encoding them in schema order into
+ * a fixed width record, and extracting the entity's (int) key. Codecs are
+ * generated from the entity class by CodecGenerator (e.g. BookCodec for
+ * Book), as plain Java calling the entity's accessors, so encoding and
+ * decoding use neither reflection nor any per-field dispatch.
+ *
+ * Field encodings (big-endian):
+ *   boolean, byte: 1 byte. short, char: 2 bytes. int, float: 4 bytes.
+ *   long, double: 8 bytes.
+ *   String: length (1 byte, or 2 bytes when wider than 255), then its
+ *           UTF-8 bytes, zero padded to the field width.
+ *
+ * Notes:
+ *  (1) A String longer than its field width (in UTF-8 bytes) is rejected
+ *      (IllegalArgumentException) before anything is written, rather
+ *      than truncated.
+ *  (2) A flyweight decode (decodeFlyweight) into a value which is
+ *      LazyStrings leaves its String fields encoded, for the value to
+ *      decode only if they are read. A generated codec with String
+ *      fields makes such values (newFlyweight), a subclass of the entity
+ *      whose String getters decode from the held bytes, so the entity
+ *      itself needs nothing for it.
+ *  (3) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Added flyweight decode (LazyStrings). JME
+ *   10/18/2026: Codec makes, copies and makes flyweight values. JME
+ *************************************************************************/
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public interface RecordCodec<T> {
+  public int size();                               // Encoded size of a record in bytes.
+  public int key( T value );                       // Key field value.
+  public void encode( ByteBuffer buffer, T value ); // Encode at buffer position (advancing it).
+  public void decode( ByteBuffer buffer, T value ); // Decode from buffer position into value (advancing it).
+  public T decode( ByteBuffer buffer );            // Decode from buffer position into a new value.
+  public T newValue();                             // New value (naked constructor).
+  public T copy( T value );                        // New value holding the stored fields of value.
+
+  // New value to decode into again and again (see decodeFlyweight). Generated codecs with String
+  // fields override this, returning a value which is LazyStrings.
+  public default T newFlyweight() { return newValue(); }
+
+  // Decode from buffer position into value (advancing it), leaving String fields encoded if value
+  // is LazyStrings. Generated codecs with String fields override this.
+  public default void decodeFlyweight( final ByteBuffer buffer, final T value ) { decode( buffer, value ); }
+
+  // A value (e.g. a flyweight, see newFlyweight) which holds String fields encoded until they are read.
+  public static interface LazyStrings {
+    // Hold String field (its number in schema order, from 1) encoded, copying length UTF-8 bytes
+    // from buffer position (advancing it).
+    public void setEncodedString( int field, ByteBuffer buffer, int length );
+  }
+
+  // Generated codec of type (the class named type name + "Codec"), looked up once.
+  @SuppressWarnings( "unchecked" )
+  public static <T> RecordCodec<T> of( final Class<T> type ) {
+    try {
+      return (RecordCodec<T>)Class.forName( type.getName() + "Codec" ).getDeclaredConstructor().newInstance();
+    } catch ( ReflectiveOperationException | ClassCastException e ) {
+      throw new IllegalArgumentException( "No record codec for " + type.getName() + ", run CodecGenerator.", e );
+    }
+  }
+
+  /*********************************************************************
+   * String field helpers (used by generated codecs).
+   *********************************************************************/
+  // UTF-8 encoding of a String field value, checked to fit its width.
+  public static byte[] encodeString( final String value, final int width, final String field ) {
+    final byte[] bytes = value.getBytes( StandardCharsets.UTF_8 );
+    if ( bytes.length > width )
+      throw new IllegalArgumentException( field + " exceeds " + width + " bytes: " + value );
+    return bytes;
+  }
+
+  // Put an encoded String field: length, bytes, zero padding.
+  public static void putString( final ByteBuffer buffer, final byte[] bytes, final int width ) {
+    if ( width > 0xff )
+      buffer.putShort( (short)bytes.length );
+    else
+      buffer.put( (byte)bytes.length );
+    buffer.put( bytes );
+    for ( int i=bytes.length; i<width; i++ )
+      buffer.put( (byte)0 );
+  }
+
+  // Get a String field, held encoded by value (see LazyStrings).
+  public static void getString( final ByteBuffer buffer, final int width, final int field, final LazyStrings value ) {
+    final int length = Math.min( width > 0xff ? buffer.getShort() & 0xffff : buffer.get() & 0xff, width );
+    final int end = buffer.position() + width;
+    value.setEncodedString( field, buffer, length );
+    buffer.position( end );
+  }
+
+  // Get a String field.
+  public static String getString( final ByteBuffer buffer, final int width ) {
+    final int length = Math.min( width > 0xff ? buffer.getShort() & 0xffff : buffer.get() & 0xff, width );
+    final String value;
+    if ( buffer.hasArray() )
+      value = new String( buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8 );
+    else {
+      final byte[] bytes = new byte[length];
+      buffer.duplicate().get( bytes );
+      value = new String( bytes, StandardCharsets.UTF_8 );
+    }
+    buffer.position( buffer.position() + width );
+    return value;
+  }
+}
@@ -0,0 +1,284 @@
+/*************************************************************************
+ * Title: Write-Ahead Log
+ * File: WriteAheadLog.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This class implements an append-only redo log for the database file.
+ * Each change is logged as a redo record holding the new image of the
+ * slot it changes (and the new record count, when that changes), and
+ * the database only changes its file once the record is in the log, so
+ * replaying the log after a crash repeats every logged change exactly.
+ *
+ * Commits are grouped: a committing thread which finds no write in
+ * progress becomes the leader, writing every record appended so far
+ * (its own and those of any waiting threads) with one sequential write
+ * and one sync, while the other threads wait for it.
+ *
+ * Log file layout:
+ *   Header: magic (int), version (int), epoch (long).
+ *   Records: body length (int), CRC-32 of body (int), then the body:
+ *            epoch (long), type (byte), slot (long), record count
+ *            (long), image length (short), image.
+ * A slot or record count of -1 means the record does not change it.
+ *
+ * Notes:
+ *  (1) A checkpoint (reset) starts a new epoch. Replay stops at the first
+ *      torn, corrupt or older epoch record, so records left over from an
+ *      earlier epoch past the end of the log are never replayed.
+ *  (2) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *   10/18/2026: Commit reports whether it led the write. JME
+ *************************************************************************/
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+public class WriteAheadLog implements AutoCloseable {
+  /*********************************************************************
+   * Constants.
+   *********************************************************************/
+  private static final int MAGIC = 0x4A57414C;     // "JWAL".
+  private static final int VERSION = 1;            // Log format version.
+  private static final int HEADER_SIZE = 16;       // Size of log header in bytes.
+  private static final int RECORD_HEADER = 8;      // Body length, CRC.
+  private static final int BODY_HEADER = 27;       // Epoch, type, slot, record count, image length.
+  private static final int MAX_BODY = BODY_HEADER + 0xffff;
+  private static final int BUFFER_SIZE = 64*1024;  // Initial size of append buffers.
+
+  // Redo record types.
+  public static final byte ADD = 1, UPDATE = 2, DELETE = 3, MOVE = 4, COUNT = 5;
+
+  // Applies a replayed redo record.
+  public static interface Redo {
+    public void apply( byte type, long slot, ByteBuffer image, long records ) throws IOException;
+  }
+
+  /*********************************************************************
+   * Instance fields (all private)
+   *********************************************************************/
+  private RandomAccessFile walFile = null;         // Log file.
+  private FileChannel channel = null;              // Log file channel.
+  private long epoch = 0;                          // Current log epoch.
+  private ByteBuffer pending = ByteBuffer.allocate( BUFFER_SIZE ); // Records appended, not yet written.
+  private ByteBuffer spare = ByteBuffer.allocate( BUFFER_SIZE );   // Buffer being written (or free).
+  private long appended = HEADER_SIZE;             // End of appended records (file offset).
+  private long written = HEADER_SIZE;              // End of records written to the file.
+  private long synced = HEADER_SIZE;               // End of records synced to the device.
+  private boolean busy = false;                    // A commit leader is writing.
+  private IOException failure = null;              // Write failure (the log is unusable).
+  private final CRC32 crc = new CRC32();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition done = lock.newCondition(); // Signalled when a leader finishes.
+
+  /*********************************************************************
+   * Class constructor, opens (or creates) the log file. Note, replay()
+   * must be called before appending, to find the end of the log.
+   *********************************************************************/
+  public WriteAheadLog( final String file ) throws IOException {
+    walFile = new RandomAccessFile( file, "rw" );
+    channel = walFile.getChannel();
+    if ( walFile.length() >= HEADER_SIZE ) {
+      walFile.seek( 0 );
+      if ( walFile.readInt() == MAGIC && walFile.readInt() == VERSION )
+        epoch = walFile.readLong();
+      else
+        epoch = -1;
+    } else
+      epoch = -1;
+    if ( epoch < 0 )
+      reset(); // New (or foreign) file.
+  }
+
+  // Replay all records of the current epoch, in order, and position the log after the last.
+  // Returns the number of records replayed.
+  public long replay( final Redo redo ) throws IOException {
+    lock.lock();
+    try {
+      final ByteBuffer header = ByteBuffer.allocate( RECORD_HEADER );
+      final ByteBuffer body = ByteBuffer.allocate( MAX_BODY );
+      long position = HEADER_SIZE, count = 0;
+      while ( true ) {
+        header.clear();
+        if ( !readFully( header, position ) )
+          break;
+        final int length = header.getInt( 0 );
+        if ( length < BODY_HEADER || length > MAX_BODY )
+          break;
+        body.clear();
+        body.limit( length );
+        if ( !readFully( body, position + RECORD_HEADER ) )
+          break;
+        crc.reset();
+        crc.update( body.array(), 0, length );
+        if ( (int)crc.getValue() != header.getInt( 4 ) )
+          break; // Torn or corrupt record.
+        body.flip();
+        if ( body.getLong() != epoch )
+          break; // Left over from an earlier epoch.
+        final byte type = body.get();
+        final long slot = body.getLong(), records = body.getLong();
+        final int imageLength = body.getShort() & 0xffff;
+        body.limit( body.position() + imageLength );
+        redo.apply( type, slot, body.slice(), records );
+        position += RECORD_HEADER + length;
+        count++;
+      }
+      // Drop any torn tail.
+      walFile.setLength( position );
+      appended = written = synced = position;
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Append a redo record (image may be null), returning its log sequence number (end offset).
+  // The record is buffered, commit() writes it.
+  public long append( final byte type, final long slot, final ByteBuffer image, final long records ) throws IOException {
+    final int imageLength = ( image == null ? 0 : image.remaining() );
+    final int length = BODY_HEADER + imageLength;
+    lock.lock();
+    try {
+      if ( failure != null )
+        throw failure;
+      if ( pending.remaining() < RECORD_HEADER + length ) {
+        final ByteBuffer larger = ByteBuffer.allocate( Math.max( pending.capacity()*2, pending.position() + RECORD_HEADER + length ) );
+        pending.flip();
+        larger.put( pending );
+        pending = larger;
+      }
+      final int start = pending.position();
+      pending.putInt( length ).putInt( 0 );
+      pending.putLong( epoch ).put( type ).putLong( slot ).putLong( records ).putShort( (short)imageLength );
+      if ( image != null )
+        pending.put( image.duplicate() );
+      crc.reset();
+      crc.update( pending.array(), start + RECORD_HEADER, length );
+      pending.putInt( start + 4, (int)crc.getValue() );
+      appended += RECORD_HEADER + length;
+      return appended;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Wait until the log is written (and if sync, synced) through lsn. The first waiter
+  // writes (and syncs) every record appended so far on behalf of all waiters. Returns
+  // true if this call led the write (false if another thread's covered lsn).
+  public boolean commit( final long lsn, final boolean sync ) throws IOException {
+    lock.lock();
+    try {
+      while ( true ) {
+        if ( failure != null )
+          throw failure;
+        if ( ( sync ? synced : written ) >= lsn )
+          return false;
+        if ( !busy )
+          break;
+        done.awaitUninterruptibly();
+      }
+      // Lead this group.
+      busy = true;
+      final ByteBuffer batch = pending;
+      final long position = written, end = appended;
+      pending = spare;
+      lock.unlock();
+      IOException error = null;
+      try {
+        batch.flip();
+        while ( batch.hasRemaining() )
+          channel.write( batch, position + batch.position() );
+        if ( sync )
+          channel.force( false );
+      } catch ( IOException e ) {
+        error = e;
+      } finally {
+        lock.lock();
+      }
+      batch.clear();
+      spare = batch;
+      busy = false;
+      if ( error != null )
+        failure = error;
+      else {
+        written = end;
+        if ( sync )
+          synced = end;
+      }
+      done.signalAll();
+      if ( error != null )
+        throw error;
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Log sequence number of the last appended record.
+  public long end() {
+    lock.lock();
+    try {
+      return appended;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Bytes of records in the log.
+  public long size() { return end() - HEADER_SIZE; }
+
+  // Empty the log and start a new epoch. Note, only called once every logged change has been
+  // applied to the database file and synced (a checkpoint), with no commit in progress.
+  public void reset() throws IOException {
+    lock.lock();
+    try {
+      epoch++;
+      final ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE );
+      header.putInt( MAGIC ).putInt( VERSION ).putLong( epoch );
+      header.flip();
+      while ( header.hasRemaining() )
+        channel.write( header, header.position() );
+      walFile.setLength( HEADER_SIZE );
+      channel.force( true );
+      pending.clear();
+      appended = written = synced = HEADER_SIZE;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Closes log file.
+  public void close() {
+    lock.lock();
+    try {
+      if ( walFile != null ) {
+        try {
+          walFile.close();
+        } catch( Exception e ) {
+          ; // Eat exception, nothing further to be done here.
+        }
+        walFile = null;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Positional read filling buffer, returns false at end of file.
+  private boolean readFully( final ByteBuffer buffer, final long position ) throws IOException {
+    while ( buffer.hasRemaining() )
+      if ( channel.read( buffer, position + buffer.position() ) < 0 )
+        return false;
+    return true;
+  }
+
+} // End of WriteAheadLog class.
@@ -0,0 +1,87 @@
+/*************************************************************************
+ * Title: Database File Converter Tests
+ * File: ConvertDatabaseTest.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * JUnit tests of ConvertDatabase on a version 1 database file written
+ * (and cleanly closed, so with a close stamp in its header) by the
+ * version 1 engine: the converted database holds every live record, the
+ * tombstones are dropped, and the original is kept.
+ *
+ * Notes:
+ *  (1) The version 1 file (resources/BooksV1.dat) holds ISBNs 1001 to
+ *      1020, book n titled "Title n" (book 7 "Café à la carte"), with
+ *      year 1990 + n and price n + 0.25, then 1003 and 1011 deleted.
+ *  (2) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *************************************************************************/
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConvertDatabaseTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  // Copy of the version 1 file, as Books.dat in the temporary folder.
+  private File v1File() throws Exception {
+    final File file = new File( folder.getRoot(), "Books.dat" );
+    try ( InputStream in = ConvertDatabaseTest.class.getResourceAsStream( "/BooksV1.dat" ) ) {
+      assertNotNull( "Missing BooksV1.dat", in );
+      Files.copy( in, file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+    }
+    return file;
+  }
+
+  private void assertConverted( final File file, final byte[] original ) throws Exception {
+    assertArrayEquals( original, Files.readAllBytes( new File( file.getPath() + ".v1" ).toPath() ) );
+    assertFalse( new File( file.getPath() + ".v2" ).exists() );
+    try ( EliJames_HW8.Database<Book, Integer> database = new EliJames_HW8().new Database<Book, Integer>( Book.class, file.getPath() ) ) {
+      assertEquals( 18, database.size() );
+      for ( int n=1; n<=20; n++ ) {
+        final EliJames_HW8.Record<Book, Integer> record = database.getRecord( 1000 + n );
+        if ( n == 3 || n == 11 )
+          assertNull( "Deleted ISBN " + (1000 + n), record );
+        else {
+          assertNotNull( "Missing ISBN " + (1000 + n), record );
+          assertEquals( ( n == 7 ? "Café à la carte" : "Title " + n ), record.get().getTitle() );
+          assertEquals( 1990 + n, record.get().getYearPublished() );
+          assertEquals( n + 0.25, record.get().getPrice(), 0.0 );
+        }
+      }
+    }
+  }
+
+  @Test
+  public void convertsCleanlyClosedV1File() throws Exception {
+    final File file = v1File();
+    final byte[] original = Files.readAllBytes( file.toPath() );
+    ConvertDatabase.main( new String[] { file.getPath() } );
+    assertConverted( file, original );
+  }
+
+  @Test
+  public void convertsV1FileWithLayoutGiven() throws Exception {
+    final File file = v1File();
+    final byte[] original = Files.readAllBytes( file.toPath() );
+    ConvertDatabase.main( new String[] { "--layout", "v1", file.getPath() } );
+    assertConverted( file, original );
+  }
+
+} // End of ConvertDatabaseTest class.
@@ -0,0 +1,141 @@
+/*************************************************************************
+ * Title: Database Concurrency Tests
+ * File: DatabaseConcurrencyTest.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * JUnit tests of the thread-safe Database: threads adding, updating and
+ * deleting their own keys at once leave the key index, the record count
+ * and the db file in agreement, and readers racing a writer never see a
+ * record half written.
+ *
+ * Notes:
+ *  (1) Commits are not synced (setSyncCommits), as the tests are of the
+ *      locking rather than the durability.
+ *  (2) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *************************************************************************/
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DatabaseConcurrencyTest {
+  private static final int threads = 8;         // Concurrent writer threads.
+  private static final int keysPerThread = 1000;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private EliJames_HW8.Database<Book, Integer> open( final String file ) throws Exception {
+    final EliJames_HW8.Database<Book, Integer> database = new EliJames_HW8().new Database<Book, Integer>( Book.class, folder.getRoot() + "/" + file );
+    database.setSyncCommits( false );
+    return database;
+  }
+
+  // Run tasks on their own threads at once, rethrowing the first failure.
+  private static void runAll( final List<Callable<Void>> tasks ) throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool( tasks.size() );
+    try {
+      for ( Future<Void> future : executor.invokeAll( tasks ) )
+        future.get();
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination( 1, TimeUnit.MINUTES );
+    }
+  }
+
+  @Test
+  public void concurrentChangesKeepIndexAndFileInAgreement() throws Exception {
+    try ( EliJames_HW8.Database<Book, Integer> database = open( "Books.dat" ) ) {
+      final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+      for ( int t=0; t<threads; t++ ) {
+        final int first = t*keysPerThread;
+        tasks.add( () -> {
+          for ( int key=first; key<first + keysPerThread; key++ )
+            database.addRecord( new Book( key, "Title " + key, 2016, key ) );
+          for ( int key=first; key<first + keysPerThread; key++ )
+            database.updateRecord( new Book( key, "Updated " + key, 2017, key + 0.5 ) );
+          for ( int key=first; key<first + keysPerThread; key+=3 )
+            database.deleteRecord( key );
+          return null;
+        } );
+      }
+      runAll( tasks );
+      verify( database );
+    }
+    // And the same after a reopen.
+    try ( EliJames_HW8.Database<Book, Integer> database = open( "Books.dat" ) ) {
+      verify( database );
+    }
+  }
+
+  private static void verify( final EliJames_HW8.Database<Book, Integer> database ) {
+    final int live = threads*( keysPerThread - ( keysPerThread + 2 )/3 );
+    assertEquals( live, database.size() );
+    assertEquals( live, database.count( r -> true ) );
+    for ( int key=0; key<threads*keysPerThread; key++ ) {
+      final EliJames_HW8.Record<Book, Integer> record = database.getRecord( key );
+      if ( key % keysPerThread % 3 == 0 )
+        assertNull( "Deleted key " + key, record );
+      else {
+        assertNotNull( "Missing key " + key, record );
+        assertEquals( "Updated " + key, record.get().getTitle() );
+        assertEquals( key + 0.5, record.get().getPrice(), 0.0 );
+      }
+    }
+  }
+
+  @Test
+  public void readersNeverSeeHalfWrittenRecords() throws Exception {
+    final int records = 100;
+    try ( EliJames_HW8.Database<Book, Integer> database = open( "Books.dat" ) ) {
+      for ( int key=0; key<records; key++ )
+        database.addRecord( new Book( key, "Version 0", 2016, 0 ) );
+      final AtomicBoolean writing = new AtomicBoolean( true );
+      final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+      // Each update writes a title and price which agree.
+      tasks.add( () -> {
+        try {
+          for ( int version=1; version<=20000; version++ )
+            database.updateRecord( new Book( version % records, "Version " + version, 2016, version ) );
+        } finally {
+          writing.set( false );
+        }
+        return null;
+      } );
+      for ( int t=0; t<4; t++ )
+        tasks.add( () -> {
+          long reads = 0;
+          while ( writing.get() || reads == 0 ) {
+            final EliJames_HW8.Record<Book, Integer> record = database.getRecord( ThreadLocalRandom.current().nextInt( records ) );
+            assertNotNull( record );
+            assertEquals( "Version " + (long)record.get().getPrice(), record.get().getTitle() );
+            reads++;
+          }
+          assertTrue( reads > 0 );
+          return null;
+        } );
+      runAll( tasks );
+    }
+  }
+
+} // End of DatabaseConcurrencyTest class.
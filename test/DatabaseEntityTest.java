@@ -0,0 +1,149 @@
+/*************************************************************************
+ * Title: Database Base Class Tests
+ * File: DatabaseEntityTest.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * JUnit tests of a Database of a base class other than Book (Part, with
+ * its generated codec PartCodec): records are added, read, updated,
+ * deleted and kept over a reopen; scans, aggregates and secondary
+ * indexes take the Part fields; the flyweight scans hold every String
+ * field encoded until read; and a Part and a Book database work side by
+ * side.
+ *
+ * Notes:
+ *  (1) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *************************************************************************/
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DatabaseEntityTest {
+  private static final int parts = 100;            // Parts added.
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private EliJames_HW8.Database<Part, Integer> open( final EliJames_HW8 app ) throws Exception {
+    return app.new Database<Part, Integer>( Part.class, folder.getRoot() + "/Parts.dat" );
+  }
+
+  // Part n, every tenth with a supplier of more than 255 bytes (and not ASCII).
+  private static Part newPart( final int n ) {
+    final StringBuilder supplier = new StringBuilder( "Supplier " + n );
+    if ( n % 10 == 0 )
+      while ( supplier.length() < 230 )
+        supplier.append( " Société" );
+    return new Part( n, "Part " + n, supplier.toString(), 1000L*n, n/4.0f, n % 3 == 0, "Bin " + n % 7 );
+  }
+
+  private static void assertPart( final Part expected, final Part part ) {
+    assertEquals( expected.getNumber(), part.getNumber() );
+    assertEquals( expected.getName(), part.getName() );
+    assertEquals( expected.getSupplier(), part.getSupplier() );
+    assertEquals( expected.getStock(), part.getStock() );
+    assertEquals( expected.getWeight(), part.getWeight(), 0.0f );
+    assertEquals( expected.isDiscontinued(), part.isDiscontinued() );
+    assertEquals( expected.getBin(), part.getBin() );
+  }
+
+  @Test
+  public void addGetUpdateDeleteAndReopen() throws Exception {
+    final Part changed = newPart( 5 );
+    changed.setSupplier( "Other supplier" );
+    changed.setStock( 42 );
+    try ( EliJames_HW8.Database<Part, Integer> database = open( new EliJames_HW8() ) ) {
+      for ( int n=0; n<parts; n++ )
+        database.addRecord( newPart( n ) );
+      assertEquals( parts, database.size() );
+      for ( int n=0; n<parts; n++ ) {
+        final EliJames_HW8.Record<Part, Integer> record = database.getRecord( n );
+        assertNotNull( "Missing part " + n, record );
+        assertEquals( Integer.valueOf( n ), record.getKey() );
+        assertPart( newPart( n ), record.get() );
+      }
+      database.updateRecord( changed );
+      database.deleteRecord( 7 );
+    }
+    try ( EliJames_HW8.Database<Part, Integer> database = open( new EliJames_HW8() ) ) {
+      assertEquals( parts - 1, database.size() );
+      assertNull( database.getRecord( 7 ) );
+      assertPart( changed, database.getRecord( 5 ).get() );
+      assertPart( newPart( 90 ), database.getRecord( 90 ).get() );
+    }
+  }
+
+  @Test
+  public void scansAggregatesAndIndexes() throws Exception {
+    try ( EliJames_HW8.Database<Part, Integer> database = open( new EliJames_HW8() ) ) {
+      final List<Part> added = new ArrayList<Part>();
+      for ( int n=0; n<parts; n++ )
+        added.add( newPart( n ) );
+      database.addRecords( added );
+
+      // Copies, in slot (insert) order.
+      final List<Part> scanned = database.scan().collect( Collectors.toList() );
+      assertEquals( parts, scanned.size() );
+      for ( int n=0; n<parts; n++ )
+        assertPart( added.get( n ), scanned.get( n ) );
+      assertEquals( Arrays.asList( "Part 0", "Part 30", "Part 60", "Part 90" ),
+                    database.scan( p -> p.isDiscontinued() && p.getSupplier().length() > 100, Part::getName ).collect( Collectors.toList() ) );
+      assertEquals( 34, database.count( Part::isDiscontinued ) );
+
+      // The flyweight holds every String field encoded until read.
+      final EliJames_HW8.Database<Part, Integer>.ScanCursor cursor = database.cursor( p -> p.getNumber() == 10 );
+      assertTrue( cursor.next() );
+      assertTrue( cursor.record() instanceof RecordCodec.LazyStrings );
+      assertPart( added.get( 10 ), cursor.record() );
+      assertFalse( cursor.next() );
+
+      final DoubleSummaryStatistics weight = database.statistics( p -> true, Part::getWeight );
+      assertEquals( parts, weight.getCount() );
+      assertEquals( (parts - 1)/4.0, weight.getMax(), 0.0 );
+      final Map<Integer, DoubleSummaryStatistics> byBin = database.statisticsBy( p -> true, p -> p.getBin().charAt( 4 ) - '0', Part::getStock );
+      assertEquals( 7, byBin.size() );
+      assertEquals( 15, byBin.get( 0 ).getCount() );
+      assertEquals( 1000.0*98, byBin.get( 0 ).getMax(), 0.0 );
+
+      database.createIndex( "stock", Part::getStock );
+      final List<Integer> numbers = new ArrayList<Integer>();
+      for ( Iterator<EliJames_HW8.Record<Part, Integer>> it = database.rangeQuery( "stock", 20000, 23000 ); it.hasNext(); )
+        numbers.add( it.next().getKey() );
+      assertEquals( Arrays.asList( 20, 21, 22, 23 ), numbers );
+    }
+  }
+
+  @Test
+  public void partAndBookDatabasesSideBySide() throws Exception {
+    final EliJames_HW8 app = new EliJames_HW8();
+    try ( EliJames_HW8.Database<Part, Integer> parts = open( app );
+          EliJames_HW8.Database<Book, Integer> books = app.new Database<Book, Integer>( Book.class, folder.getRoot() + "/Books.dat" ) ) {
+      parts.addRecord( newPart( 1 ) );
+      books.addRecord( new Book( 1, "Wild", 2012, 12.15 ) );
+      assertPart( newPart( 1 ), parts.getRecord( 1 ).get() );
+      assertEquals( "Wild", books.getRecord( 1 ).get().getTitle() );
+      assertEquals( 1, parts.count( p -> p.getName().equals( "Part 1" ) ) );
+      assertEquals( 1, books.count( b -> b.getTitle().equals( "Wild" ) ) );
+    }
+  }
+
+} // End of DatabaseEntityTest class.
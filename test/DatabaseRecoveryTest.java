@@ -0,0 +1,222 @@
+/*************************************************************************
+ * Title: Database Recovery Tests
+ * File: DatabaseRecoveryTest.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * JUnit tests of the write-ahead log: recovery after a crash (a database
+ * left open and abandoned, its slot writes lost) repeats every logged
+ * change and stops at a torn or corrupt log tail, a bulk load's record
+ * count is only recovered once its records reached the file, and
+ * concurrent adds share log syncs (group commit) while scans only see
+ * finished adds.
+ *
+ * Notes:
+ *  (1) A crash is simulated by abandoning an open database, then zeroing
+ *      the record slots of its db file, as if the slot writes made since
+ *      the last checkpoint never reached the device.
+ *  (2) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *************************************************************************/
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DatabaseRecoveryTest {
+  private static final int headerSize = 64;     // Db file header (version 2 layout).
+  private static final int recordSize = 66;     // Db record (version 2 layout).
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private String dbFile() { return new File( folder.getRoot(), "Books.dat" ).getPath(); }
+  private File walFile() { return new File( folder.getRoot(), "Books.wal" ); }
+
+  private EliJames_HW8.Database<Book, Integer> open() throws Exception {
+    return new EliJames_HW8().new Database<Book, Integer>( Book.class, dbFile() );
+  }
+
+  private static Book newBook( final int isbn ) {
+    return new Book( isbn, "Title " + isbn, 2016, isbn / 10.0 );
+  }
+
+  // Lose every slot write from the given slot on (the database having been abandoned).
+  private void loseSlotWrites( final long fromSlot ) throws Exception {
+    try ( RandomAccessFile raf = new RandomAccessFile( dbFile(), "rw" ) ) {
+      final long from = headerSize + fromSlot*recordSize;
+      if ( raf.length() > from ) {
+        raf.seek( from );
+        raf.write( new byte[(int)( raf.length() - from )] );
+      }
+    }
+  }
+
+  // Keys first to last (inclusive) are present, and nothing else (in particular no key 0, as a zeroed slot reads).
+  private static void assertKeys( final EliJames_HW8.Database<Book, Integer> database, final int first, final int last ) {
+    assertEquals( last - first + 1, database.size() );
+    assertEquals( last - first + 1, database.count( r -> true ) );
+    assertEquals( 0, database.count( r -> r.getISBN() < first || r.getISBN() > last ) );
+    for ( int key=first; key<=last; key++ ) {
+      final EliJames_HW8.Record<Book, Integer> record = database.getRecord( key );
+      assertNotNull( "Missing key " + key, record );
+      assertEquals( "Title " + key, record.get().getTitle() );
+    }
+  }
+
+  @Test
+  public void replayRestoresLostSlotWrites() throws Exception {
+    final EliJames_HW8.Database<Book, Integer> crashed = open();
+    for ( int key=1; key<=20; key++ )
+      crashed.addRecord( newBook( key ) );
+    crashed.deleteRecord( 5 );
+    crashed.updateRecord( new Book( 6, "Title 6", 2017, 99.0 ) );
+    loseSlotWrites( 0 );
+    try ( EliJames_HW8.Database<Book, Integer> database = open() ) {
+      assertEquals( 19, database.size() );
+      assertNull( database.getRecord( 5 ) );
+      assertEquals( 99.0, database.getRecord( 6 ).get().getPrice(), 0.0 );
+      assertEquals( 2017, database.getRecord( 6 ).get().getYearPublished() );
+      database.deleteRecord( 6 );
+      database.addRecord( newBook( 5 ) );
+      database.addRecord( newBook( 6 ) );
+      assertKeys( database, 1, 20 );
+    }
+    try ( EliJames_HW8.Database<Book, Integer> database = open() ) {
+      assertKeys( database, 1, 20 );
+    }
+  }
+
+  @Test
+  public void replayStopsAtTornTail() throws Exception {
+    final EliJames_HW8.Database<Book, Integer> crashed = open();
+    for ( int key=1; key<=10; key++ )
+      crashed.addRecord( newBook( key ) );
+    loseSlotWrites( 0 );
+    // Cut the last record short, as a crash part way through its write would.
+    try ( RandomAccessFile raf = new RandomAccessFile( walFile(), "rw" ) ) {
+      raf.setLength( raf.length() - 5 );
+    }
+    try ( EliJames_HW8.Database<Book, Integer> database = open() ) {
+      assertKeys( database, 1, 9 );
+      database.addRecord( newBook( 10 ) ); // The log carries on after recovery.
+    }
+    try ( EliJames_HW8.Database<Book, Integer> database = open() ) {
+      assertKeys( database, 1, 10 );
+    }
+  }
+
+  @Test
+  public void replayStopsAtCorruptRecord() throws Exception {
+    final EliJames_HW8.Database<Book, Integer> crashed = open();
+    for ( int key=1; key<=10; key++ )
+      crashed.addRecord( newBook( key ) );
+    final long end = walFile().length();
+    crashed.addRecord( newBook( 11 ) );
+    crashed.addRecord( newBook( 12 ) );
+    loseSlotWrites( 0 );
+    // Flip a byte of the 11th record's image, so its checksum fails (the 12th is then not replayed either).
+    try ( RandomAccessFile raf = new RandomAccessFile( walFile(), "rw" ) ) {
+      raf.seek( end + 40 );
+      final int b = raf.read();
+      raf.seek( end + 40 );
+      raf.write( b ^ 0xff );
+    }
+    try ( EliJames_HW8.Database<Book, Integer> database = open() ) {
+      assertKeys( database, 1, 10 );
+    }
+  }
+
+  @Test
+  public void bulkLoadCountOnlyRecoveredOnceSynced() throws Exception {
+    final EliJames_HW8.Database<Book, Integer> crashed = open();
+    for ( int key=1; key<=10; key++ )
+      crashed.addRecord( newBook( key ) );
+    // A bulk load (unsynced) crashes part way, after a synced commit by another change.
+    final EliJames_HW8.Database<Book, Integer>.BulkLoader loader = crashed.new BulkLoader( 100, EliJames_HW8.Durability.NONE );
+    for ( int key=11; key<=260; key++ )
+      loader.add( newBook( key ) );
+    crashed.updateRecord( newBook( 1 ) );
+    loseSlotWrites( 10 );
+    try ( EliJames_HW8.Database<Book, Integer> database = open() ) {
+      assertKeys( database, 1, 10 );
+    }
+  }
+
+  @Test
+  public void bulkLoadCountRecoveredAfterClose() throws Exception {
+    for ( EliJames_HW8.Durability durability : EliJames_HW8.Durability.values() ) {
+      final EliJames_HW8.Database<Book, Integer> crashed = open();
+      crashed.addRecords( () -> IntStream.rangeClosed( 1, 1000 ).mapToObj( DatabaseRecoveryTest::newBook ).iterator(), durability );
+      crashed.addRecord( newBook( 1001 ) ); // Synced, so the bulk load's count is too.
+      try ( EliJames_HW8.Database<Book, Integer> database = open() ) {
+        assertKeys( database, 1, 1001 );
+      }
+      new File( dbFile() ).delete();
+      walFile().delete();
+    }
+  }
+
+  @Test
+  public void concurrentAddsShareLogSyncs() throws Exception {
+    final int threads = 16, adds = 50;
+    final DatabaseMetrics metrics = new DatabaseMetrics();
+    try ( EliJames_HW8.Database<Book, Integer> database = open() ) {
+      database.setMetrics( metrics );
+      final CountDownLatch ready = new CountDownLatch( threads ), done = new CountDownLatch( threads );
+      final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+      for ( int t=0; t<threads; t++ ) {
+        final int first = 1 + t*adds;
+        tasks.add( () -> {
+          ready.countDown();
+          ready.await();
+          for ( int key=first; key<first + adds; key++ )
+            database.addRecord( newBook( key ) );
+          done.countDown();
+          return null;
+        } );
+      }
+      // Meanwhile, scans never reach a slot whose add is still in flight (it would read as key 0).
+      tasks.add( () -> {
+        while ( done.getCount() > 0 )
+          assertEquals( 0, database.count( r -> r.getISBN() == 0 ) );
+        return null;
+      } );
+      final ExecutorService executor = Executors.newFixedThreadPool( tasks.size() );
+      try {
+        for ( Future<Void> future : executor.invokeAll( tasks ) )
+          future.get();
+      } finally {
+        executor.shutdown();
+        executor.awaitTermination( 1, TimeUnit.MINUTES );
+      }
+      assertEquals( threads*adds, metrics.getLatency( DatabaseMetrics.Operation.ADD ).getCount() );
+      assertTrue( "Syncs " + metrics.getLogSyncs(), metrics.getLogSyncs() > 0 && metrics.getLogSyncs() < threads*adds/2 );
+      assertKeys( database, 1, threads*adds );
+    }
+    try ( EliJames_HW8.Database<Book, Integer> database = open() ) {
+      assertKeys( database, 1, threads*adds );
+    }
+  }
+
+} // End of DatabaseRecoveryTest class.
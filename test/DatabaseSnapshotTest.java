@@ -0,0 +1,192 @@
+/*************************************************************************
+ * Title: Database Snapshot Tests
+ * File: DatabaseSnapshotTest.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * JUnit tests of Database snapshots: a snapshot scan sees the records as
+ * they stood when it was taken while other threads update, delete and
+ * add records, the old slot images kept for it are dropped once no open
+ * snapshot needs them, and compaction is put off while one is open.
+ *
+ * Notes:
+ *  (1) Commits are not synced (setSyncCommits), as the tests are of the
+ *      snapshots rather than the durability.
+ *  (2) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *************************************************************************/
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DatabaseSnapshotTest {
+  private static final long headerSize = 64; // Db file header bytes.
+  private static final long recordSize = 66; // Db file record (slot) bytes.
+  private static final int records = 1000;   // Records in the db when the first snapshot is taken.
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private EliJames_HW8.Database<Book, Integer> open() throws Exception {
+    final EliJames_HW8.Database<Book, Integer> database = new EliJames_HW8().new Database<Book, Integer>( Book.class, folder.getRoot() + "/Books.dat" );
+    database.setSyncCommits( false );
+    return database;
+  }
+
+  // Run tasks on their own threads at once, rethrowing the first failure.
+  private static void runAll( final List<Callable<Void>> tasks ) throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool( tasks.size() );
+    try {
+      for ( Future<Void> future : executor.invokeAll( tasks ) )
+        future.get();
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination( 1, TimeUnit.MINUTES );
+    }
+  }
+
+  // Assert a snapshot holds exactly keys 0 to records-1, each with version title and price.
+  private static void assertSnapshot( final EliJames_HW8.Database<Book, Integer>.Snapshot snapshot, final int version ) {
+    final List<Book> seen = snapshot.scan().collect( Collectors.toList() );
+    assertEquals( records, seen.size() );
+    assertEquals( records, snapshot.count( r -> true ) );
+    for ( int i=0; i<records; i++ ) {
+      assertEquals( i, seen.get( i ).getISBN() );
+      assertEquals( "Version " + version, seen.get( i ).getTitle() );
+      assertEquals( version, seen.get( i ).getPrice(), 0.0 );
+    }
+  }
+
+  @Test
+  public void snapshotIgnoresConcurrentChanges() throws Exception {
+    try ( EliJames_HW8.Database<Book, Integer> database = open() ) {
+      database.setCompactionThreshold( 1.0 ); // Deletes leave free slots for the adds to reuse.
+      for ( int key=0; key<records; key++ )
+        database.addRecord( new Book( key, "Version 0", 2016, 0 ) );
+      final EliJames_HW8.Database<Book, Integer>.Snapshot first = database.snapshot();
+      for ( int key=0; key<records; key++ )
+        database.updateRecord( new Book( key, "Version 1", 2016, 1 ) );
+      final EliJames_HW8.Database<Book, Integer>.Snapshot second = database.snapshot();
+
+      // Writers update the even keys, delete the odd ones and add new keys (into the freed slots),
+      // while a reader scans both snapshots.
+      final AtomicInteger writing = new AtomicInteger();
+      final List<Callable<Void>> writers = new ArrayList<Callable<Void>>();
+      writers.add( () -> {
+        for ( int pass=2; pass<10; pass++ )
+          for ( int key=0; key<records; key+=2 )
+            database.updateRecord( new Book( key, "Version " + pass, 2016, pass ) );
+        return null;
+      } );
+      writers.add( () -> {
+        for ( int key=1; key<records; key+=2 )
+          database.deleteRecord( key );
+        return null;
+      } );
+      writers.add( () -> {
+        for ( int key=records; key<2*records; key++ )
+          database.addRecord( new Book( key, "Added", 2016, -1 ) );
+        return null;
+      } );
+      final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+      writing.set( writers.size() );
+      for ( Callable<Void> writer : writers )
+        tasks.add( () -> {
+          try {
+            return writer.call();
+          } finally {
+            writing.decrementAndGet();
+          }
+        } );
+      tasks.add( () -> {
+        long scans = 0;
+        while ( writing.get() > 0 || scans == 0 ) {
+          assertSnapshot( first, 0 );
+          assertSnapshot( second, 1 );
+          scans++;
+        }
+        return null;
+      } );
+      runAll( tasks );
+      assertSnapshot( first, 0 );
+      assertSnapshot( second, 1 );
+
+      // The current records have every change.
+      assertEquals( records + records/2, database.size() );
+      for ( int key=0; key<2*records; key++ ) {
+        final EliJames_HW8.Record<Book, Integer> record = database.getRecord( key );
+        if ( key < records && key % 2 == 1 )
+          assertNull( "Deleted key " + key, record );
+        else {
+          assertNotNull( "Missing key " + key, record );
+          assertEquals( ( key < records ? "Version 9" : "Added" ), record.get().getTitle() );
+        }
+      }
+
+      // Closing the newer snapshot keeps the images the older one needs, closing it drops them all.
+      assertTrue( database.retainedVersions() >= records );
+      second.close();
+      assertTrue( database.retainedVersions() >= records );
+      assertSnapshot( first, 0 );
+      first.close();
+      assertEquals( 0, database.retainedVersions() );
+
+      // With no snapshot open, changes keep no images.
+      database.updateRecord( new Book( 0, "Version 10", 2016, 10 ) );
+      assertEquals( 0, database.retainedVersions() );
+    }
+  }
+
+  @Test
+  public void compactionWaitsForOpenSnapshot() throws Exception {
+    final int count = 100;
+    try ( EliJames_HW8.Database<Book, Integer> database = open() ) {
+      database.setCompactionThreshold( 0.25 );
+      for ( int key=0; key<count; key++ )
+        database.addRecord( new Book( key, "Title " + key, 2016, key ) );
+      try ( EliJames_HW8.Database<Book, Integer>.Snapshot snapshot = database.snapshot() ) {
+        // Well past the threshold, but the records can not move under the snapshot.
+        for ( int key=0; key<count/2; key++ )
+          database.deleteRecord( key );
+        database.compact();
+        assertEquals( count/2, database.size() );
+        assertEquals( count, snapshot.count( r -> true ) );
+        assertEquals( count - 1, snapshot.scan().reduce( ( a, b ) -> b ).get().getISBN() );
+      }
+    }
+    // Closing the db truncates it to its slots, so the tombstones are still in the file.
+    final File file = new File( folder.getRoot(), "Books.dat" );
+    assertEquals( headerSize + count*recordSize, file.length() );
+
+    // A later delete (with no snapshot open) compacts.
+    try ( EliJames_HW8.Database<Book, Integer> database = open() ) {
+      database.setCompactionThreshold( 0.25 );
+      database.deleteRecord( count/2 );
+      assertEquals( count/2 - 1, database.size() );
+      for ( int key=count/2 + 1; key<count; key++ )
+        assertEquals( "Title " + key, database.getRecord( key ).get().getTitle() );
+    }
+    assertEquals( headerSize + ( count/2 - 1 )*recordSize, file.length() );
+  }
+
+} // End of DatabaseSnapshotTest class.
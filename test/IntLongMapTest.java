@@ -0,0 +1,90 @@
+/*************************************************************************
+ * Title: Primitive Int to Long Hash Map Tests
+ * File: IntLongMapTest.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * JUnit tests of IntLongMap: entries survive a save and load, loading a
+ * missing snapshot neither fails nor creates the file, and a map which
+ * can grow no further refuses a new key rather than probing forever.
+ *
+ * Notes:
+ *  (1) The full map is a small one (its maximum table set lower), as
+ *      the real maximum is 2^30 buckets.
+ *  (2) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *************************************************************************/
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IntLongMapTest {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void saveAndLoad() throws Exception {
+    for ( boolean offHeap : new boolean[] { false, true } ) {
+      final IntLongMap map = new IntLongMap( offHeap );
+      for ( int key=0; key<10000; key++ )
+        map.put( key, 2L*key );
+      for ( int key=0; key<10000; key+=2 )
+        assertEquals( 2L*key, map.remove( key ) );
+      final String file = folder.getRoot() + "/Books" + offHeap + ".idx";
+      map.save( file, 42 );
+
+      final IntLongMap loaded = new IntLongMap( offHeap );
+      assertFalse( loaded.load( file, 41 ) ); // Stale stamp.
+      assertEquals( 0, loaded.size() );
+      assertTrue( loaded.load( file, 42 ) );
+      assertEquals( 5000, loaded.size() );
+      for ( int key=0; key<10000; key++ )
+        assertEquals( ( key % 2 == 0 ? -1 : 2L*key ), loaded.get( key ) );
+    }
+  }
+
+  @Test
+  public void loadMissingFile() throws Exception {
+    final File file = new File( folder.getRoot(), "Books.idx" );
+    final IntLongMap map = new IntLongMap( false );
+    map.put( 1, 1 );
+    assertFalse( map.load( file.getPath(), 42 ) );
+    assertEquals( 0, map.size() );
+    assertFalse( file.exists() );
+  }
+
+  @Test
+  public void fullMapRefusesNewKey() {
+    for ( boolean offHeap : new boolean[] { false, true } ) {
+      final IntLongMap map = new IntLongMap( offHeap, 128 );
+      // One bucket is kept empty, so the map holds one entry fewer than its buckets.
+      for ( int key=0; key<127; key++ )
+        map.put( key, key );
+      assertEquals( 127, map.size() );
+      try {
+        map.put( 127, 127 );
+        fail( "Put into a full map." );
+      } catch ( IllegalStateException e ) {
+        assertEquals( 127, map.size() );
+      }
+      // Existing keys may still be replaced, looked up and removed.
+      assertEquals( 5, map.put( 5, 500 ) );
+      assertEquals( 500, map.get( 5 ) );
+      assertEquals( -1, map.get( 127 ) );
+      assertEquals( 500, map.remove( 5 ) );
+      assertEquals( -1, map.put( 127, 127 ) );
+    }
+  }
+
+} // End of IntLongMapTest class.
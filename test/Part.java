@@ -0,0 +1,89 @@
+/*************************************************************************
+ * Title: Test Database Class
+ * File: Part.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * This is a database base class other than Book, for the tests (see
+ * DatabaseEntityTest): a part number (the key), two String fields (the
+ * supplier wide enough for a 2 byte length), and fields of the other
+ * encoded types. Its record codec (PartCodec) is generated from the
+ * DbField schema below.
+ *
+ * Notes:
+ *  (1) After changing the schema, regenerate the codec:
+ *        java -cp target/classes:target/test-classes CodecGenerator Part test
+ *  (2) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *************************************************************************/
+public class Part {
+  /*********************************************************************
+   * Instance fields (all private)
+   *********************************************************************/
+  @DbField( order = 1, length = 24 )
+  private String name;         // Part name.
+  @DbField( order = 2, key = true )
+  private int number;          // Part number.
+  @DbField( order = 3, length = 300 )
+  private String supplier;     // Supplier name and address.
+  @DbField( order = 4 )
+  private long stock;          // Number in stock.
+  @DbField( order = 5 )
+  private float weight;        // Weight (kg).
+  @DbField( order = 6 )
+  private boolean discontinued; // No longer made.
+  @DbField( order = 7, length = 32 )
+  private String bin;          // Storage bin.
+
+  /*********************************************************************
+   * Class constructors.
+   *********************************************************************/
+  // Naked constructor.
+  public Part() { this( 0, "", "", 0, 0.0f, false, "" ); }
+
+  public Part( int number, String name, String supplier, long stock, float weight, boolean discontinued, String bin ) {
+    setNumber( number );
+    setName( name );
+    setSupplier( supplier );
+    setStock( stock );
+    setWeight( weight );
+    setDiscontinued( discontinued );
+    setBin( bin );
+  }
+
+  /*********************************************************************
+   * Class mutators.
+   *********************************************************************/
+  public void setNumber( int number ) { this.number = number; }
+  public void setName( String name ) { this.name = name; }
+  public void setSupplier( String supplier ) { this.supplier = supplier; }
+  public void setStock( long stock ) { this.stock = stock; }
+  public void setWeight( float weight ) { this.weight = weight; }
+  public void setDiscontinued( boolean discontinued ) { this.discontinued = discontinued; }
+  public void setBin( String bin ) { this.bin = bin; }
+
+  /*********************************************************************
+   * Class accessors.
+   *********************************************************************/
+  public int getNumber() { return this.number; }
+  public String getName() { return this.name; }
+  public String getSupplier() { return this.supplier; }
+  public long getStock() { return this.stock; }
+  public float getWeight() { return this.weight; }
+  public boolean isDiscontinued() { return this.discontinued; }
+  public String getBin() { return this.bin; }
+
+  /*********************************************************************
+   * Overridden methods.
+   *********************************************************************/
+  @Override
+  public String toString() {
+    return String.format( "Part %d %s (%s), %d in stock, %.2f kg%s, bin %s", getNumber(), getName(), getSupplier(), getStock(),
+                          getWeight(), ( isDiscontinued() ? ", discontinued" : "" ), getBin() );
+  }
+
+} // End of Part class.
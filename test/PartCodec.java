@@ -0,0 +1,193 @@
+/*************************************************************************
+ * Generated by CodecGenerator from Part -- do not edit.
+ *
+ * Record codec (see RecordCodec) of the DbField schema of Part.
+ * Regenerate it when the schema changes:
+ *   java CodecGenerator Part test
+ *
+ * Record layout (377 bytes):
+ *   #1 name (String, 24 bytes)
+ *   #2 number (int, key)
+ *   #3 supplier (String, 300 bytes)
+ *   #4 stock (long)
+ *   #5 weight (float)
+ *   #6 discontinued (boolean)
+ *   #7 bin (String, 32 bytes)
+ *************************************************************************/
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class PartCodec implements RecordCodec<Part> {
+  public static final int SIZE = 377; // Encoded size in bytes.
+
+  // Field numbers (schema order).
+  public static final int NAME = 1;
+  public static final int NUMBER = 2;
+  public static final int SUPPLIER = 3;
+  public static final int STOCK = 4;
+  public static final int WEIGHT = 5;
+  public static final int DISCONTINUED = 6;
+  public static final int BIN = 7;
+
+  public int size() { return SIZE; }
+
+  public int key( final Part value ) { return value.getNumber(); }
+
+  public Part newValue() { return new Part(); }
+
+  public Part newFlyweight() { return new Flyweight(); }
+
+  public Part copy( final Part value ) {
+    final Part copy = new Part();
+    copy.setName( value.getName() );
+    copy.setNumber( value.getNumber() );
+    copy.setSupplier( value.getSupplier() );
+    copy.setStock( value.getStock() );
+    copy.setWeight( value.getWeight() );
+    copy.setDiscontinued( value.isDiscontinued() );
+    copy.setBin( value.getBin() );
+    return copy;
+  }
+
+  public void encode( final ByteBuffer buffer, final Part value ) {
+    // Strings are encoded first, so one which does not fit fails before anything is written.
+    final byte[] nameBytes = RecordCodec.encodeString( value.getName(), 24, "Name" );
+    final byte[] supplierBytes = RecordCodec.encodeString( value.getSupplier(), 300, "Supplier" );
+    final byte[] binBytes = RecordCodec.encodeString( value.getBin(), 32, "Bin" );
+    // Field #1 (name).
+    RecordCodec.putString( buffer, nameBytes, 24 );
+    // Field #2 (number).
+    buffer.putInt( value.getNumber() );
+    // Field #3 (supplier).
+    RecordCodec.putString( buffer, supplierBytes, 300 );
+    // Field #4 (stock).
+    buffer.putLong( value.getStock() );
+    // Field #5 (weight).
+    buffer.putFloat( value.getWeight() );
+    // Field #6 (discontinued).
+    buffer.put( value.isDiscontinued() ? (byte)1 : (byte)0 );
+    // Field #7 (bin).
+    RecordCodec.putString( buffer, binBytes, 32 );
+  }
+
+  public void decode( final ByteBuffer buffer, final Part value ) {
+    // Field #1 (name).
+    value.setName( RecordCodec.getString( buffer, 24 ) );
+    // Field #2 (number).
+    value.setNumber( buffer.getInt() );
+    // Field #3 (supplier).
+    value.setSupplier( RecordCodec.getString( buffer, 300 ) );
+    // Field #4 (stock).
+    value.setStock( buffer.getLong() );
+    // Field #5 (weight).
+    value.setWeight( buffer.getFloat() );
+    // Field #6 (discontinued).
+    value.setDiscontinued( buffer.get() != 0 );
+    // Field #7 (bin).
+    value.setBin( RecordCodec.getString( buffer, 32 ) );
+  }
+
+  public void decodeFlyweight( final ByteBuffer buffer, final Part value ) {
+    if ( !( value instanceof RecordCodec.LazyStrings ) ) {
+      decode( buffer, value );
+      return;
+    }
+    final RecordCodec.LazyStrings strings = (RecordCodec.LazyStrings)value;
+    // Field #1 (name).
+    RecordCodec.getString( buffer, 24, NAME, strings );
+    // Field #2 (number).
+    value.setNumber( buffer.getInt() );
+    // Field #3 (supplier).
+    RecordCodec.getString( buffer, 300, SUPPLIER, strings );
+    // Field #4 (stock).
+    value.setStock( buffer.getLong() );
+    // Field #5 (weight).
+    value.setWeight( buffer.getFloat() );
+    // Field #6 (discontinued).
+    value.setDiscontinued( buffer.get() != 0 );
+    // Field #7 (bin).
+    RecordCodec.getString( buffer, 32, BIN, strings );
+  }
+
+  public Part decode( final ByteBuffer buffer ) {
+    final Part value = newValue();
+    decode( buffer, value );
+    return value;
+  }
+
+  // Flyweight Part (see newFlyweight), holding its Strings encoded until read.
+  private static final class Flyweight extends Part implements RecordCodec.LazyStrings {
+    private final byte[] nameBytes = new byte[24]; // Undecoded UTF-8 name, if namePending.
+    private int nameLength = 0; // Length of undecoded name.
+    private boolean namePending = false; // Name not yet decoded from nameBytes.
+    private final byte[] supplierBytes = new byte[300]; // Undecoded UTF-8 supplier, if supplierPending.
+    private int supplierLength = 0; // Length of undecoded supplier.
+    private boolean supplierPending = false; // Supplier not yet decoded from supplierBytes.
+    private final byte[] binBytes = new byte[32]; // Undecoded UTF-8 bin, if binPending.
+    private int binLength = 0; // Length of undecoded bin.
+    private boolean binPending = false; // Bin not yet decoded from binBytes.
+
+    @Override
+    public String getName() {
+      if ( namePending ) {
+        super.setName( new String( nameBytes, 0, nameLength, StandardCharsets.UTF_8 ) );
+        namePending = false;
+      }
+      return super.getName();
+    }
+
+    @Override
+    public void setName( final String value ) {
+      namePending = false;
+      super.setName( value );
+    }
+
+    @Override
+    public String getSupplier() {
+      if ( supplierPending ) {
+        super.setSupplier( new String( supplierBytes, 0, supplierLength, StandardCharsets.UTF_8 ) );
+        supplierPending = false;
+      }
+      return super.getSupplier();
+    }
+
+    @Override
+    public void setSupplier( final String value ) {
+      supplierPending = false;
+      super.setSupplier( value );
+    }
+
+    @Override
+    public String getBin() {
+      if ( binPending ) {
+        super.setBin( new String( binBytes, 0, binLength, StandardCharsets.UTF_8 ) );
+        binPending = false;
+      }
+      return super.getBin();
+    }
+
+    @Override
+    public void setBin( final String value ) {
+      binPending = false;
+      super.setBin( value );
+    }
+
+    public void setEncodedString( final int field, final ByteBuffer buffer, final int length ) {
+      if ( field == NAME ) {
+        buffer.get( nameBytes, 0, length );
+        nameLength = length;
+        namePending = true;
+      } else if ( field == SUPPLIER ) {
+        buffer.get( supplierBytes, 0, length );
+        supplierLength = length;
+        supplierPending = true;
+      } else if ( field == BIN ) {
+        buffer.get( binBytes, 0, length );
+        binLength = length;
+        binPending = true;
+      } else
+        throw new IllegalArgumentException( "No String field #" + field + "." );
+    }
+  } // End of Flyweight class.
+
+} // End of PartCodec class.
@@ -0,0 +1,95 @@
+/*************************************************************************
+ * Title: Bounded Record Cache Tests
+ * File: RecordCacheTest.java
+ * Author: James Eli
+ * Date: 10/18/2026
+ *
+ * JUnit tests of RecordCache (both policies): the bound holds, a
+ * replaced value is the one returned, and churning a hot set smaller
+ * than the bound (replacing and invalidating the same few keys, as the
+ * database's write through does) leaves no garbage behind in the CLOCK
+ * ring.
+ *
+ * Notes:
+ *  (1) Compiled with java SE JDK 8, Update 102 (JDK 8u102).
+ *
+ * Submitted in partial fulfillment of the requirements of PCC CIS-131.
+ *************************************************************************
+ * Change Log:
+ *   10/18/2026: Initial release. JME
+ *************************************************************************/
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RecordCacheTest {
+  private static final int bound = 1000;           // Cache bound (entries).
+
+  private static List<RecordCache<Integer, String>> caches() {
+    return Arrays.<RecordCache<Integer, String>>asList( new RecordCache.Lru<Integer, String>( bound ),
+                                                         new RecordCache.Clock<Integer, String>( bound ) );
+  }
+
+  @Test
+  public void boundHolds() {
+    for ( RecordCache<Integer, String> cache : caches() ) {
+      for ( int key=0; key<10*bound; key++ ) {
+        cache.put( key, "Value " + key );
+        assertTrue( cache.size() <= bound );
+      }
+      assertEquals( bound, cache.size() );
+      assertEquals( 9*bound, cache.getEvictions() );
+      assertEquals( "Value " + (10*bound - 1), cache.get( 10*bound - 1 ) );
+    }
+  }
+
+  @Test
+  public void replaceAndInvalidate() {
+    for ( RecordCache<Integer, String> cache : caches() ) {
+      cache.put( 1, "One" );
+      cache.put( 1, "Uno" );
+      assertEquals( 1, cache.size() );
+      assertEquals( "Uno", cache.get( 1 ) );
+      cache.invalidate( 1 );
+      assertEquals( 0, cache.size() );
+      assertNull( cache.get( 1 ) );
+      cache.invalidate( 2 ); // Not cached.
+      assertEquals( 1, cache.getHits() );
+      assertEquals( 1, cache.getMisses() );
+      assertEquals( 0, cache.getEvictions() );
+    }
+  }
+
+  @Test
+  public void churnWithinBoundLeavesNoGarbage() {
+    final int hot = 10;
+    final RecordCache.Clock<Integer, String> clock = new RecordCache.Clock<Integer, String>( bound );
+    for ( int i=0; i<1000000; i++ ) {
+      clock.put( i % hot, "Value " + i );
+      if ( i % 7 == 0 )
+        clock.get( i % hot );
+      if ( i % 3 == 0 )
+        clock.invalidate( ( i + 1 ) % hot );
+      assertTrue( "Ring of " + clock.ringSize() + " nodes", clock.ringSize() <= Math.max( 2*hot, 34 ) );
+    }
+    assertTrue( clock.size() <= hot );
+    assertEquals( 0, clock.getEvictions() );
+    // Every key cached holds its latest value.
+    for ( int key=0; key<hot; key++ ) {
+      final String value = clock.get( key );
+      if ( value != null )
+        assertEquals( 0, ( Integer.parseInt( value.substring( 6 ) ) - key ) % hot );
+    }
+    // The live entries still fill the bound and are evicted from it.
+    for ( int key=hot; key<hot + 2*bound; key++ )
+      clock.put( key, "Value " + key );
+    assertEquals( bound, clock.size() );
+    assertTrue( clock.ringSize() <= 2*bound );
+  }
+
+} // End of RecordCacheTest class.